@@ -0,0 +1,37 @@
+package nonogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads the bundled puzzles for benchmarks.
+ */
+final class BenchmarkPuzzles {
+
+    private BenchmarkPuzzles() {
+    }
+
+    /**
+     * Loads a puzzle packaged with the benchmarks.
+     *
+     * @param name File name of the puzzle in resources/
+     * @return Constraints of the puzzle
+     * @throws IOException If puzzle can not be found or read
+     */
+    static NonogramConstraints load(String name) throws IOException {
+        InputStream input = BenchmarkPuzzles.class.getResourceAsStream("/" + name);
+        if (input == null) {
+            throw new IOException("Puzzle " + name + " not found");
+        }
+        byte[] bytes;
+        try (input) {
+            bytes = input.readAllBytes();
+        }
+        NonogramConstraints constraints = new NonogramParser(ByteBuffer.wrap(bytes)).next();
+        if (constraints == null) {
+            throw new IOException("No nonogram found in " + name);
+        }
+        return constraints;
+    }
+}
@@ -0,0 +1,269 @@
+package nonogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the edit loop of a puzzle editor and compares the latency of
+ * re-solving with a {@link NonogramEditor} against solving every edited
+ * puzzle from scratch.
+ * <p>
+ * Every puzzle starts from a generated picture. Each edit either pins a
+ * cell of the picture, or flips a cell and changes the clues of its row and
+ * column to match, and is followed by a solve. The cold solve builds the
+ * constraints from the clues as parsed and searches from an empty grid, as
+ * done before the editor existed, so it knows nothing of pinned cells. Both
+ * run in the same JVM and the domains of new clues are built before either
+ * solve is timed, so both take line domains from the shared cache. Like
+ * {@link ScalingBenchmark} this is a plain main class, every solve is
+ * timed once.
+ * <p>
+ * Generated pictures are mostly solved by propagation alone. To see edits
+ * of puzzles needing search, a puzzle file can be given instead, its first
+ * solution is the picture edited.
+ */
+public final class EditLoopBenchmark {
+
+    private EditLoopBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * Usage: {@code EditLoopBenchmark [--sizes <s,s,...>] [--density <d>] [--puzzles <k>]
+     * [--edits <e>] [--pins <fraction>] [--mode <mode>] [--timeout <ms>] [--seed <s>] [--puzzle <file>]}.
+     * Boards are square, {@code --pins} is the share of edits pinning a cell.
+     * With {@code --puzzle} the solution of the file is edited {@code --puzzles} times instead.
+     * The first puzzle is solved once before measuring to warm up the JIT.
+     *
+     */
+    public static void main(String[] args) throws IOException {
+        // Read arguments
+        int[] sizes = {15, 20, 25, 30};
+        double density = 0.6;
+        int puzzles = 3;
+        int edits = 40;
+        double pins = 0.5;
+        SolutionMode mode = SolutionMode.unique();
+        String modeName = "unique";
+        long timeout = 10000;
+        long seed = 1;
+        Path puzzle = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--sizes")) {
+                sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (args[i].equals("--density")) {
+                density = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--puzzles")) {
+                puzzles = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--edits")) {
+                edits = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--pins")) {
+                pins = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--mode")) {
+                modeName = args[++i];
+                mode = SolutionMode.parse(modeName);
+            } else if (args[i].equals("--timeout")) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--puzzle")) {
+                puzzle = Paths.get(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("Mode %s, density %.2f, %d puzzle(s) of %d edits per size, %.0f %% pins, timeout %d ms%n",
+                modeName, density, puzzles, edits, 100 * pins, timeout);
+        System.out.printf("%8s %6s %7s %11s %11s %11s %11s %11s %9s%n",
+                "size", "edit", "count", "cold p50", "cold p90", "incr p50", "incr p90", "incr max", "speedup");
+
+        // Warm up
+        NonogramGenerator warmup = new NonogramGenerator(seed);
+        replay(warmup.randomGrid(sizes[0], sizes[0], density), edits, pins, mode, timeout, new Random(seed),
+                new ArrayList<>());
+
+        if (puzzle != null) {
+            // Edit the first solution
+            NonogramConstraints constraints = NonogramConstraints.read(puzzle);
+            NonogramSolver solver = new NonogramSolver(constraints, SolutionMode.first());
+            List<NonogramSolver.NonogrammSolution> found = new ArrayList<>();
+            solver.setSolutionSink(solution -> found.add(solution.copy()));
+            solver.solve();
+            if (found.isEmpty()) {
+                System.out.println(puzzle + " has no solution");
+                return;
+            }
+            Random random = new Random(seed);
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < puzzles; i++) {
+                replay(toGrid(found.get(0)), edits, pins, mode, timeout, random, samples);
+            }
+            String label = constraints.getM() + "x" + constraints.getN();
+            report(label, "pin", samples, true);
+            report(label, "flip", samples, false);
+            return;
+        }
+
+        for (int size : sizes) {
+            // Same puzzles and edits for every run
+            NonogramGenerator generator = new NonogramGenerator(seed * 1000003 + size);
+            Random random = new Random(seed * 1000003 + size);
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < puzzles; i++) {
+                replay(generator.randomGrid(size, size, density), edits, pins, mode, timeout, random, samples);
+            }
+            report(size + "x" + size, "pin", samples, true);
+            report(size + "x" + size, "flip", samples, false);
+        }
+    }
+
+    /**
+     * Converts a solution to a picture.
+     *
+     * @param solution Solved grid
+     * @return Picture, black cells true
+     */
+    private static boolean[][] toGrid(NonogramSolver.NonogrammSolution solution) {
+        boolean[][] grid = new boolean[solution.getN()][solution.getM()];
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid[row].length; col++) {
+                grid[row][col] = solution.get(row, col) == NonogramSolver.FIELD_BLACK;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Replays random edits of a picture, solving after every edit both cold and with the editor.
+     *
+     * @param grid    Picture to start from, black cells true, changed by the edits
+     * @param edits   Number of edits
+     * @param pins    Share of edits pinning a cell
+     * @param mode    Defines how many solutions are searched
+     * @param timeout Maximal time per solve in milliseconds
+     * @param random  Source of the edits
+     * @param samples Measured solves, added to
+     */
+    private static void replay(boolean[][] grid, int edits, double pins, SolutionMode mode, long timeout,
+                               Random random, List<Sample> samples) {
+        int n = grid.length;
+        int m = grid[0].length;
+        NonogramEditor editor = new NonogramEditor(NonogramGenerator.toConstraints(grid), mode);
+        editor.solve(timeout, TimeUnit.MILLISECONDS);
+        for (int e = 0; e < edits; e++) {
+            int row = random.nextInt(n);
+            int col = random.nextInt(m);
+            boolean pin = random.nextDouble() < pins;
+            NonogramConstraints edited = null;
+            if (!pin) {
+                // Flip cell, so its row
+                // and column change clue
+                grid[row][col] = !grid[row][col];
+                edited = NonogramGenerator.toConstraints(grid);
+
+                // Build domains of the new clues
+                // before either solve is timed
+                LineDomainCache.shared().get(edited.getRowBlocks(row), m, NonogramConstraints.MAX_DOMAIN_SIZE);
+                LineDomainCache.shared().get(edited.getColumnBlocks(col), n, NonogramConstraints.MAX_DOMAIN_SIZE);
+            }
+
+            long startTime = System.nanoTime();
+            if (pin) {
+                editor.pin(row, col, grid[row][col] ? NonogramSolver.FIELD_BLACK : NonogramSolver.FIELD_WHITE);
+            } else {
+                editor.setRowClue(row, edited.getRowBlocks(row));
+                editor.setColumnClue(col, edited.getColumnBlocks(col));
+                editor.pin(row, col, NonogramSolver.FIELD_UNKNOWN);
+            }
+            editor.solve(timeout, TimeUnit.MILLISECONDS);
+            long incremental = System.nanoTime() - startTime;
+
+            long cold = solveCold(grid, mode, timeout);
+            samples.add(new Sample(pin, cold, incremental));
+        }
+    }
+
+    /**
+     * Solves a picture as the editor did before: constraints built from
+     * the clues, search from an empty grid.
+     *
+     * @param grid    Picture, black cells true
+     * @param mode    Defines how many solutions are searched
+     * @param timeout Maximal time in milliseconds
+     * @return Nanoseconds taken
+     */
+    private static long solveCold(boolean[][] grid, SolutionMode mode, long timeout) {
+        NonogramConstraints clues = NonogramGenerator.toConstraints(grid);
+        int[][] rowClues = new int[clues.getN()][];
+        int[][] columnClues = new int[clues.getM()][];
+        for (int row = 0; row < rowClues.length; row++) {
+            rowClues[row] = clues.getRowBlocks(row).clone();
+        }
+        for (int col = 0; col < columnClues.length; col++) {
+            columnClues[col] = clues.getColumnBlocks(col).clone();
+        }
+
+        long startTime = System.nanoTime();
+        NonogramConstraints constraints = new NonogramConstraints(clues.getM(), clues.getN(), rowClues, columnClues);
+        new NonogramSolver(constraints, mode).solve(timeout, TimeUnit.MILLISECONDS);
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Prints one line of results for one kind of edit.
+     *
+     * @param label   Size of the boards
+     * @param edit    Name of the kind of edit
+     * @param samples Measured solves of that size
+     * @param pin     True to report pins, false to report flips
+     */
+    private static void report(String label, String edit, List<Sample> samples, boolean pin) {
+        long[] cold = samples.stream().filter(s -> s.pin == pin).mapToLong(s -> s.cold).sorted().toArray();
+        long[] incremental = samples.stream().filter(s -> s.pin == pin).mapToLong(s -> s.incremental)
+                .sorted().toArray();
+        if (cold.length == 0) {
+            return;
+        }
+        double coldTotal = Arrays.stream(cold).sum();
+        double incrementalTotal = Arrays.stream(incremental).sum();
+        System.out.printf("%8s %6s %7d %11.2f %11.2f %11.2f %11.2f %11.2f %8.1fx%n",
+                label, edit, cold.length,
+                percentile(cold, 0.5) / 1e6, percentile(cold, 0.9) / 1e6,
+                percentile(incremental, 0.5) / 1e6, percentile(incremental, 0.9) / 1e6,
+                incremental[incremental.length - 1] / 1e6, coldTotal / incrementalTotal);
+    }
+
+    /**
+     * Gets a percentile of sorted values.
+     *
+     * @param sorted   Values in ascending order
+     * @param fraction Percentile as fraction
+     * @return Value at the percentile
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+
+    /**
+     * Latencies of one edit.
+     */
+    private static final class Sample {
+        private final boolean pin;
+        private final long cold;
+        private final long incremental;
+
+        Sample(boolean pin, long cold, long incremental) {
+            this.pin = pin;
+            this.cold = cold;
+            this.incremental = incremental;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nonogram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generation of all row permutations without any expected cells.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermutationBenchmark {
+    @Param({"nonogramm_a.in", "nonogramm_b.in", "nonogramm_c.in", "nonogramm_d.in", "nonogramm_e.in"})
+    public String puzzle;
+
+    private PermutationGenerator[] generators;
+    private long[] noCells;
+
+    @Setup
+    public void setUp() throws IOException {
+        NonogramConstraints constraints = BenchmarkPuzzles.load(puzzle);
+        generators = new PermutationGenerator[constraints.getN()];
+        for (int row = 0; row < constraints.getN(); row++) {
+            generators[row] = constraints.createRowPermutations(row);
+        }
+        noCells = new long[constraints.getWords()];
+    }
+
+    /**
+     * Generates every permutation of every row.
+     *
+     * @return Number of permutations
+     */
+    @Benchmark
+    public long calculatePermutations() {
+        long count = 0;
+        for (PermutationGenerator generator : generators) {
+            generator.reset(noCells, noCells);
+            while (generator.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,184 @@
+package nonogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves generated puzzles of growing size and reports how time, nodes and
+ * memory scale.
+ * <p>
+ * Unlike the JMH benchmarks every puzzle is solved once, as large boards
+ * take seconds and the interesting result is where the solver stops
+ * finishing at all. Puzzles are generated by {@link NonogramGenerator} with
+ * fixed seeds, so every run sees the same puzzles. A solve stopped by the
+ * timeout counts as timed out, its time is the timeout.
+ */
+public final class ScalingBenchmark {
+
+    private ScalingBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * Usage: {@code ScalingBenchmark [--sizes <s,s,...>] [--density <d>] [--puzzles <k>]
+     * [--timeout <ms>] [--engine backtrack|sat] [--seed <s>] [--corpus <directory>]}.
+     * Boards are square. With {@code --corpus} the generated puzzles are
+     * written to one file per size as well.
+     *
+     */
+    public static void main(String[] args) throws IOException {
+        // Read arguments
+        int[] sizes = {10, 20, 30, 50, 75, 100, 150, 200};
+        double density = 0.6;
+        int puzzles = 3;
+        long timeout = 10000;
+        NonogramSolver.Engine engine = NonogramSolver.Engine.BACKTRACK;
+        long seed = 1;
+        Path corpus = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--sizes")) {
+                sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (args[i].equals("--density")) {
+                density = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--puzzles")) {
+                puzzles = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--timeout")) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--engine")) {
+                engine = NonogramSolver.Engine.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--corpus")) {
+                corpus = Paths.get(args[++i]);
+                Files.createDirectories(corpus);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("Engine %s, density %.2f, %d puzzle(s) per size, timeout %d ms%n",
+                engine.name().toLowerCase(), density, puzzles, timeout);
+        System.out.printf("%8s %7s %9s %11s %11s %13s %13s %9s%n",
+                "size", "solved", "timedout", "median ms", "max ms", "median nodes", "max nodes", "peak MB");
+
+        for (int size : sizes) {
+            // Same puzzles for every run
+            NonogramGenerator generator = new NonogramGenerator(seed * 1000003 + size);
+            List<Result> results = new ArrayList<>();
+            Writer out = corpus == null ? null
+                    : Files.newBufferedWriter(corpus.resolve(String.format("random_%03d.in", size)),
+                    StandardCharsets.UTF_8);
+            for (int i = 0; i < puzzles; i++) {
+                NonogramConstraints constraints = NonogramGenerator.toConstraints(
+                        generator.randomGrid(size, size, density));
+                if (out != null) {
+                    NonogramGenerator.write(constraints, out);
+                }
+                results.add(solve(constraints, engine, timeout));
+            }
+            if (out != null) {
+                out.close();
+            }
+            report(size, results);
+        }
+    }
+
+    /**
+     * Solves a puzzle.
+     *
+     * @param constraints Constraints of the puzzle
+     * @param engine      Engine solving the puzzle
+     * @param timeout     Maximal time in milliseconds
+     * @return Measured values
+     */
+    private static Result solve(NonogramConstraints constraints, NonogramSolver.Engine engine, long timeout) {
+        resetPeakMemory();
+        NonogramSolver solver = new NonogramSolver(constraints, SolutionMode.count());
+        solver.setEngine(engine);
+        SolveOutcome outcome = solver.solve(timeout, TimeUnit.MILLISECONDS);
+        boolean timedOut = outcome.getStatus() == SolveOutcome.Status.TIMED_OUT;
+        return new Result(timedOut, outcome.getNanos(), outcome.getNumberOfNodes(), getPeakMemory());
+    }
+
+    /**
+     * Prints one line of results.
+     *
+     * @param size    Size of the boards
+     * @param results Results of all puzzles of that size
+     */
+    private static void report(int size, List<Result> results) {
+        int timedOut = 0;
+        long[] nanos = new long[results.size()];
+        long[] nodes = new long[results.size()];
+        long peak = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            timedOut += result.timedOut ? 1 : 0;
+            nanos[i] = result.nanos;
+            nodes[i] = result.nodes;
+            peak = Math.max(peak, result.peakBytes);
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(nodes);
+        System.out.printf("%8s %7d %9d %11.1f %11.1f %13d %13d %9.1f%n",
+                size + "x" + size, results.size() - timedOut, timedOut,
+                nanos[nanos.length / 2] / 1e6, nanos[nanos.length - 1] / 1e6,
+                nodes[nodes.length / 2], nodes[nodes.length - 1], peak / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Collects garbage and resets the peak usage of all heap pools.
+     */
+    private static void resetPeakMemory() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Gets the peak heap usage since the last reset.
+     *
+     * @return Sum of peak usages of all heap pools in bytes, an upper bound of the real peak
+     */
+    private static long getPeakMemory() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Measured values of one solve.
+     */
+    private static final class Result {
+        private final boolean timedOut;
+        private final long nanos;
+        private final long nodes;
+        private final long peakBytes;
+
+        Result(boolean timedOut, long nanos, long nodes, long peakBytes) {
+            this.timedOut = timedOut;
+            this.nanos = nanos;
+            this.nodes = nodes;
+            this.peakBytes = peakBytes;
+        }
+    }
+}
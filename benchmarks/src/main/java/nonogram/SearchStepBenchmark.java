@@ -0,0 +1,94 @@
+package nonogram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single steps done per node of the search.
+ * <p>
+ * The upper half of the rows is set, taken from the first solution of the
+ * puzzle or from the first permutation of each row if it has none. The steps
+ * are measured for the row in the middle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchStepBenchmark {
+    @Param({"nonogramm_a.in", "nonogramm_b.in", "nonogramm_c.in", "nonogramm_d.in", "nonogramm_e.in"})
+    public String puzzle;
+
+    private NonogramSolver solver;
+    private NonogramSolver.NonogrammSolution solution;
+    private int rowIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        NonogramConstraints constraints = BenchmarkPuzzles.load(puzzle);
+        int n = constraints.getN();
+        int m = constraints.getM();
+
+        // Take rows from a solution if there is one
+        NonogramSolver reference = new NonogramSolver(constraints);
+        NonogramSolver.NonogrammSolution solved = reference.solve() > 0 ? reference.getSolutions().get(0) : null;
+
+        solver = new NonogramSolver(constraints);
+        solution = new NonogramSolver.NonogrammSolution(n, m);
+        rowIndex = n / 2;
+        long[] noCells = new long[constraints.getWords()];
+        for (int row = 0; row <= rowIndex; row++) {
+            long[] mask = new long[constraints.getWords()];
+            if (solved != null) {
+                for (int col = 0; col < m; col++) {
+                    if (solved.get(row, col) == NonogramSolver.FIELD_BLACK) {
+                        RowMask.setBlack(mask, col);
+                    }
+                }
+            } else {
+                PermutationGenerator generator = constraints.createRowPermutations(row);
+                generator.reset(noCells, noCells);
+                generator.next();
+                System.arraycopy(generator.getRow(), 0, mask, 0, mask.length);
+            }
+
+            solution.setRow(row, mask, 0, new char[m]);
+            if (row < rowIndex) {
+                solver.updateBlockInformation(solution, row);
+            }
+        }
+    }
+
+    /**
+     * Calculates the expected row from the block information above.
+     */
+    @Benchmark
+    public void getExpectedRow() {
+        solver.getExpectedRow(solution, rowIndex);
+    }
+
+    /**
+     * Updates and resets the block information for a set row.
+     *
+     * @return Trail position
+     */
+    @Benchmark
+    public int updateBlockInformation() {
+        int trailMark = solver.updateBlockInformation(solution, rowIndex);
+        solver.resetBlockInformation(rowIndex, trailMark);
+        return trailMark;
+    }
+}
@@ -0,0 +1,52 @@
+package nonogram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures solving a puzzle from scratch, including creation of the solver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+    @Param({"nonogramm_a.in", "nonogramm_b.in", "nonogramm_c.in", "nonogramm_d.in", "nonogramm_e.in"})
+    public String puzzle;
+
+    @Param({"backtrack", "sat"})
+    public String engine;
+
+    private NonogramConstraints constraints;
+
+    @Setup
+    public void setUp() throws IOException {
+        constraints = BenchmarkPuzzles.load(puzzle);
+    }
+
+    /**
+     * Solves the puzzle on one thread with the chosen engine.
+     *
+     * @return Number of solutions
+     */
+    @Benchmark
+    public long solve() {
+        NonogramSolver solver = new NonogramSolver(constraints);
+        solver.setEngine(NonogramSolver.Engine.valueOf(engine.toUpperCase()));
+        return solver.solve();
+    }
+}
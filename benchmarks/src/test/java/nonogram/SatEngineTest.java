@@ -0,0 +1,105 @@
+package nonogram;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the SAT engine finds the same solutions as backtracking.
+ * <p>
+ * The engines find solutions in different orders, so solutions are compared
+ * sorted. Random puzzles are small enough to enumerate all their solutions.
+ */
+class SatEngineTest {
+    private static final String[] PUZZLES = {
+            "nonogramm_a.in", "nonogramm_b.in", "nonogramm_c.in", "nonogramm_d.in", "nonogramm_e.in"
+    };
+
+    @Test
+    void bundledPuzzlesHaveSameSolutions() throws IOException {
+        for (String name : PUZZLES) {
+            NonogramConstraints constraints = BenchmarkPuzzles.load(name);
+            assertEquals(solve(constraints, NonogramSolver.Engine.BACKTRACK, false, null),
+                    solve(constraints, NonogramSolver.Engine.SAT, false, null), name);
+        }
+    }
+
+    @Test
+    void randomPuzzlesHaveSameSolutions() {
+        NonogramGenerator generator = new NonogramGenerator(42);
+        for (int i = 0; i < 60; i++) {
+            int m = 5 + i % 8;
+            int n = 5 + i / 8 % 8;
+            NonogramConstraints constraints = NonogramGenerator.toConstraints(
+                    generator.randomGrid(m, n, 0.3 + 0.05 * (i % 5)));
+            assertEquals(solve(constraints, NonogramSolver.Engine.BACKTRACK, false, null),
+                    solve(constraints, NonogramSolver.Engine.SAT, false, null), "puzzle " + i);
+        }
+    }
+
+    @Test
+    void transposedPuzzlesWithGivenCellsHaveSameSolutions() {
+        NonogramGenerator generator = new NonogramGenerator(7);
+        for (int i = 0; i < 20; i++) {
+            boolean[][] grid = generator.randomGrid(10, 8, 0.5);
+            NonogramConstraints constraints = NonogramGenerator.toConstraints(grid);
+            NonogramSolver.NonogrammSolution given = new NonogramSolver.NonogrammSolution(8, 10);
+            given.set(i % 8, i % 10, grid[i % 8][i % 10] ? NonogramSolver.FIELD_BLACK : NonogramSolver.FIELD_WHITE);
+            assertEquals(solve(constraints, NonogramSolver.Engine.BACKTRACK, false, given),
+                    solve(constraints, NonogramSolver.Engine.SAT, true, given), "puzzle " + i);
+        }
+    }
+
+    @Test
+    void countsSameNumberOfSolutions() {
+        NonogramGenerator generator = new NonogramGenerator(3);
+        for (int i = 0; i < 20; i++) {
+            NonogramConstraints constraints = NonogramGenerator.toConstraints(generator.randomGrid(9, 9, 0.4));
+            NonogramSolver backtrack = new NonogramSolver(constraints, SolutionMode.count());
+            NonogramSolver sat = new NonogramSolver(constraints, SolutionMode.count());
+            sat.setEngine(NonogramSolver.Engine.SAT);
+            SolveOutcome expected = backtrack.solve(10, TimeUnit.SECONDS);
+            SolveOutcome outcome = sat.solve(10, TimeUnit.SECONDS);
+            assertEquals(expected.getStatus(), outcome.getStatus(), "puzzle " + i);
+            assertEquals(expected.getNumberOfSolutions(), outcome.getNumberOfSolutions(), "puzzle " + i);
+        }
+    }
+
+    @Test
+    void rejectsParallelSearch() {
+        NonogramSolver solver = new NonogramSolver(NonogramGenerator.toConstraints(new boolean[][]{{true}}));
+        solver.setEngine(NonogramSolver.Engine.SAT);
+        assertThrows(IllegalStateException.class, () -> solver.solveParallel(2));
+    }
+
+    /**
+     * Solves a puzzle and collects all its solutions.
+     *
+     * @param constraints Constraints of the puzzle
+     * @param engine      Engine to solve with
+     * @param transposed  True to branch over columns
+     * @param given       Grid with cells given, null to solve from an empty grid
+     * @return Solutions, sorted
+     */
+    private static List<String> solve(NonogramConstraints constraints, NonogramSolver.Engine engine,
+                                      boolean transposed, NonogramSolver.NonogrammSolution given) {
+        NonogramSolver solver = new NonogramSolver(constraints, SolutionMode.all(), transposed);
+        solver.setEngine(engine);
+        List<String> solutions = new ArrayList<>();
+        solver.setSolutionSink(solution -> solutions.add(solution.toString()));
+        if (given == null) {
+            solver.solve();
+        } else {
+            solver.solve(given);
+        }
+        Collections.sort(solutions);
+        return solutions;
+    }
+}
@@ -0,0 +1,625 @@
+package nonogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Small conflict driven clause learning SAT solver.
+ * <p>
+ * Variables are numbered from 0, literal {@code 2 * v} stands for variable v
+ * being true and {@code 2 * v + 1} for it being false. Clauses are watched by
+ * two literals, conflicts are analysed to the first unique implication point
+ * and the learnt clause is used to jump back. Variables are chosen by
+ * activity with saved phases, restarts follow the Luby sequence and half of
+ * the long learnt clauses are dropped from time to time. Clauses may be added
+ * between calls of {@link #solve()}, e.g. to block found models.
+ */
+public final class CdclSolver {
+    /**
+     * Outcome of {@link #solve()}.
+     */
+    public enum Result {
+        /** A model was found */
+        SATISFIABLE,
+        /** The clauses can not be satisfied */
+        UNSATISFIABLE,
+        /** The solver was cancelled or its deadline passed */
+        UNKNOWN
+    }
+
+    private static final byte UNASSIGNED = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+
+    private static final int RESTART_BASE = 100;
+    private static final double VARIABLE_DECAY = 0.95;
+
+    // Decisions between two looks at the clock
+    private static final long CLOCK_CHECK_MASK = (1 << 7) - 1;
+
+    // Clauses, null once deleted, watched literals first,
+    // and clauses watching a literal
+    private final List<int[]> clauses = new ArrayList<>();
+    private final List<Integer> learnts = new ArrayList<>();
+    private IntList[] watches = new IntList[0];
+    private int maxLearnts;
+
+    // Assignment per variable
+    private int numberOfVariables;
+    private byte[] values = new byte[0];
+    private int[] levels = new int[0];
+    private int[] reasons = new int[0];
+    private boolean[] phases = new boolean[0];
+
+    // Assigned literals in order,
+    // with start of every decision level
+    private int[] trail = new int[0];
+    private int trailSize;
+    private final IntList levelStarts = new IntList();
+    private int propagationHead;
+
+    // Variable order by activity
+    private double[] activities = new double[0];
+    private double activityIncrement = 1;
+    private int[] heap = new int[0];
+    private int[] heapIndex = new int[0];
+    private int heapSize;
+
+    // Conflict analysis
+    private boolean[] seen = new boolean[0];
+    private final IntList learnt = new IntList();
+
+    private boolean ok = true;
+    private volatile boolean cancelled;
+
+    // Deadline as System.nanoTime(),
+    // only used if set
+    private boolean hasDeadline;
+    private long deadline;
+    private boolean timedOut;
+
+    // Statistics
+    private long decisions;
+    private long conflicts;
+    private long propagations;
+
+    /**
+     * Creates a new variable.
+     *
+     * @return Index of the variable
+     */
+    public int newVariable() {
+        int v = numberOfVariables++;
+        if (v == values.length) {
+            int capacity = Math.max(16, 2 * v);
+            values = Arrays.copyOf(values, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            phases = Arrays.copyOf(phases, capacity);
+            trail = Arrays.copyOf(trail, capacity);
+            activities = Arrays.copyOf(activities, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            heapIndex = Arrays.copyOf(heapIndex, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            int oldLiterals = watches.length;
+            watches = Arrays.copyOf(watches, 2 * capacity);
+            for (int lit = oldLiterals; lit < watches.length; lit++) {
+                watches[lit] = new IntList();
+            }
+        }
+        reasons[v] = -1;
+        heapIndex[v] = -1;
+        heapInsert(v);
+        return v;
+    }
+
+    /**
+     * Gets literal of a variable.
+     *
+     * @param variable Index of variable
+     * @param positive True for the literal being true if the variable is true
+     * @return Literal
+     */
+    public static int literal(int variable, boolean positive) {
+        return positive ? 2 * variable : 2 * variable + 1;
+    }
+
+    /**
+     * Adds a clause. Must not be called while solving.
+     *
+     * @param literals Literals of the clause, not kept
+     * @return False if the clauses became unsatisfiable
+     */
+    public boolean addClause(int... literals) {
+        if (!ok) {
+            return false;
+        }
+        cancelUntil(0);
+
+        // Drop false and duplicate literals,
+        // skip satisfied clauses
+        int[] clause = literals.clone();
+        Arrays.sort(clause);
+        int size = 0;
+        for (int i = 0; i < clause.length; i++) {
+            int lit = clause[i];
+            if (value(lit) == TRUE || i > 0 && lit == (clause[i - 1] ^ 1)) {
+                return true;
+            }
+            if (value(lit) != FALSE && (size == 0 || clause[size - 1] != lit)) {
+                clause[size++] = lit;
+            }
+        }
+
+        if (size == 0) {
+            ok = false;
+        } else if (size == 1) {
+            enqueue(clause[0], -1);
+            ok = propagate() < 0;
+        } else {
+            attach(Arrays.copyOf(clause, size));
+        }
+        return ok;
+    }
+
+    /**
+     * Searches a model of all clauses.
+     *
+     * @return Outcome of the search
+     */
+    public Result solve() {
+        if (!ok) {
+            return Result.UNSATISFIABLE;
+        }
+        cancelUntil(0);
+        maxLearnts = Math.max(maxLearnts, clauses.size() / 3 + 1000);
+
+        for (int restart = 1; ; restart++) {
+            Result result = search(RESTART_BASE * luby(restart - 1));
+            if (result != null) {
+                return result;
+            }
+            if (cancelled || timedOut) {
+                return Result.UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * Gets value of a variable in the model found by the last {@link #solve()}.
+     *
+     * @param variable Index of variable
+     * @return True if the variable is true
+     */
+    public boolean isTrue(int variable) {
+        return values[variable] == TRUE;
+    }
+
+    /**
+     * Stops solving as soon as possible.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Stops solving once a deadline passes. The clock is only
+     * read every 128 decisions, so solving may run slightly longer.
+     *
+     * @param deadline Time as {@link System#nanoTime()}
+     */
+    public void setDeadline(long deadline) {
+        this.hasDeadline = true;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Tells whether solving stopped at the deadline.
+     *
+     * @return True if the deadline passed
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Gets number of decisions made.
+     *
+     * @return Number of decisions
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Gets number of conflicts found.
+     *
+     * @return Number of conflicts
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets number of propagated literals.
+     *
+     * @return Number of propagations
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * Searches until a model is found, the clauses are refuted or too many conflicts occurred.
+     *
+     * @param conflictLimit Number of conflicts before restarting
+     * @return Outcome, null if restarting
+     */
+    private Result search(long conflictLimit) {
+        long conflictsBefore = conflicts;
+        while (true) {
+            int conflict = propagate();
+            if (conflict >= 0) {
+                conflicts++;
+                if (levelStarts.size() == 0) {
+                    ok = false;
+                    return Result.UNSATISFIABLE;
+                }
+
+                // Learn clause and jump back
+                int backtrackLevel = analyze(conflict);
+                cancelUntil(backtrackLevel);
+                int[] clause = learnt.toArray();
+                if (clause.length == 1) {
+                    enqueue(clause[0], -1);
+                } else {
+                    int index = attach(clause);
+                    learnts.add(index);
+                    enqueue(clause[0], index);
+                }
+                activityIncrement /= VARIABLE_DECAY;
+            } else {
+                if (cancelled || timedOut || conflicts - conflictsBefore >= conflictLimit) {
+                    cancelUntil(0);
+                    return null;
+                }
+                if (learnts.size() - trailSize >= maxLearnts) {
+                    reduceLearnts();
+                }
+
+                // Choose next variable
+                int v = -1;
+                while (heapSize > 0 && v < 0) {
+                    int next = heapRemoveMax();
+                    if (values[next] == UNASSIGNED) {
+                        v = next;
+                    }
+                }
+                if (v < 0) {
+                    return Result.SATISFIABLE;
+                }
+                decisions++;
+                if (hasDeadline && (decisions & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - deadline >= 0) {
+                    timedOut = true;
+                }
+                levelStarts.add(trailSize);
+                enqueue(literal(v, phases[v]), -1);
+            }
+        }
+    }
+
+    /**
+     * Propagates all assigned literals.
+     *
+     * @return Index of a conflicting clause or -1
+     */
+    private int propagate() {
+        while (propagationHead < trailSize) {
+            int falseLit = trail[propagationHead++] ^ 1;
+            IntList watchers = watches[falseLit];
+            int[] list = watchers.items;
+            int size = watchers.size;
+            int i = 0;
+            int j = 0;
+            propagations++;
+
+            while (i < size) {
+                int index = list[i++];
+                int[] clause = clauses.get(index);
+                if (clause == null) {
+                    // Deleted clause
+                    continue;
+                }
+
+                // Make sure false literal is second
+                if (clause[0] == falseLit) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLit;
+                }
+                if (value(clause[0]) == TRUE) {
+                    list[j++] = index;
+                    continue;
+                }
+
+                // Look for new literal to watch
+                boolean moved = false;
+                for (int k = 2; k < clause.length; k++) {
+                    if (value(clause[k]) != FALSE) {
+                        clause[1] = clause[k];
+                        clause[k] = falseLit;
+                        watches[clause[1]].add(index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+
+                // Clause is unit or conflicting
+                list[j++] = index;
+                if (value(clause[0]) == FALSE) {
+                    while (i < size) {
+                        list[j++] = list[i++];
+                    }
+                    watchers.size = j;
+                    propagationHead = trailSize;
+                    return index;
+                }
+                enqueue(clause[0], index);
+            }
+            watchers.size = j;
+        }
+        return -1;
+    }
+
+    /**
+     * Derives a clause from a conflict, asserting at the first unique implication point.
+     * The clause is left in {@link #learnt} with the asserting literal first.
+     *
+     * @param conflict Index of conflicting clause
+     * @return Decision level to jump back to
+     */
+    private int analyze(int conflict) {
+        learnt.clear();
+        learnt.add(-1);
+        int level = levelStarts.size();
+        int pathCount = 0;
+        int p = -1;
+        int index = trailSize - 1;
+
+        do {
+            int[] clause = clauses.get(conflict);
+            for (int k = p < 0 ? 0 : 1; k < clause.length; k++) {
+                int q = clause[k];
+                int v = q >> 1;
+                if (!seen[v] && levels[v] > 0) {
+                    bumpActivity(v);
+                    seen[v] = true;
+                    if (levels[v] >= level) {
+                        pathCount++;
+                    } else {
+                        learnt.add(q);
+                    }
+                }
+            }
+
+            // Next literal of current level on the trail
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            p = trail[index--];
+            conflict = reasons[p >> 1];
+            seen[p >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt.items[0] = p ^ 1;
+
+        // Find level to jump back to,
+        // its literal is watched second
+        int backtrackLevel = 0;
+        int second = 1;
+        for (int k = 1; k < learnt.size; k++) {
+            int v = learnt.items[k] >> 1;
+            seen[v] = false;
+            if (levels[v] > backtrackLevel) {
+                backtrackLevel = levels[v];
+                second = k;
+            }
+        }
+        if (learnt.size > 1) {
+            int lit = learnt.items[1];
+            learnt.items[1] = learnt.items[second];
+            learnt.items[second] = lit;
+        }
+        return backtrackLevel;
+    }
+
+    /**
+     * Drops the longer half of the learnt clauses not being a reason.
+     */
+    private void reduceLearnts() {
+        learnts.sort((a, b) -> Integer.compare(clauses.get(b).length, clauses.get(a).length));
+        List<Integer> kept = new ArrayList<>();
+        for (int k = 0; k < learnts.size(); k++) {
+            int index = learnts.get(k);
+            int[] clause = clauses.get(index);
+            boolean locked = reasons[clause[0] >> 1] == index && value(clause[0]) == TRUE;
+            if (k < learnts.size() / 2 && clause.length > 2 && !locked) {
+                clauses.set(index, null);
+            } else {
+                kept.add(index);
+            }
+        }
+        learnts.clear();
+        learnts.addAll(kept);
+        maxLearnts += maxLearnts / 10;
+    }
+
+    /**
+     * Adds a clause with at least two literals and watches its first two literals.
+     *
+     * @param clause Literals
+     * @return Index of clause
+     */
+    private int attach(int[] clause) {
+        int index = clauses.size();
+        clauses.add(clause);
+        watches[clause[0]].add(index);
+        watches[clause[1]].add(index);
+        return index;
+    }
+
+    private void enqueue(int lit, int reason) {
+        int v = lit >> 1;
+        values[v] = (lit & 1) == 0 ? TRUE : FALSE;
+        levels[v] = levelStarts.size();
+        reasons[v] = reason;
+        trail[trailSize++] = lit;
+    }
+
+    /**
+     * Unassigns all literals above a decision level.
+     *
+     * @param level Decision level to keep
+     */
+    private void cancelUntil(int level) {
+        if (levelStarts.size() <= level) {
+            return;
+        }
+        int start = levelStarts.get(level);
+        for (int k = trailSize - 1; k >= start; k--) {
+            int v = trail[k] >> 1;
+            phases[v] = values[v] == TRUE;
+            values[v] = UNASSIGNED;
+            reasons[v] = -1;
+            if (heapIndex[v] < 0) {
+                heapInsert(v);
+            }
+        }
+        trailSize = start;
+        propagationHead = start;
+        levelStarts.size = level;
+    }
+
+    private byte value(int lit) {
+        byte value = values[lit >> 1];
+        return (lit & 1) == 0 ? value : (byte) -value;
+    }
+
+    private void bumpActivity(int v) {
+        activities[v] += activityIncrement;
+        if (activities[v] > 1e100) {
+            // Rescale to avoid overflow
+            for (int k = 0; k < numberOfVariables; k++) {
+                activities[k] *= 1e-100;
+            }
+            activityIncrement *= 1e-100;
+        }
+        if (heapIndex[v] >= 0) {
+            heapUp(heapIndex[v]);
+        }
+    }
+
+    private void heapInsert(int v) {
+        heap[heapSize] = v;
+        heapIndex[v] = heapSize;
+        heapUp(heapSize++);
+    }
+
+    private int heapRemoveMax() {
+        int max = heap[0];
+        heapIndex[max] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            heapDown(0);
+        }
+        return max;
+    }
+
+    private void heapUp(int i) {
+        int v = heap[i];
+        while (i > 0 && activities[heap[(i - 1) >> 1]] < activities[v]) {
+            heap[i] = heap[(i - 1) >> 1];
+            heapIndex[heap[i]] = i;
+            i = (i - 1) >> 1;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    private void heapDown(int i) {
+        int v = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && activities[heap[child + 1]] > activities[heap[child]]) {
+                child++;
+            }
+            if (activities[heap[child]] <= activities[v]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    /**
+     * Calculates element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+     *
+     * @param x Position, starting at 0
+     * @return Element
+     */
+    private static long luby(int x) {
+        // Find subsequence containing x
+        int size = 1;
+        int sequence = 0;
+        while (size < x + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            sequence--;
+            x = x % size;
+        }
+        return 1L << sequence;
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static final class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = item;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package nonogram;
+
+/**
+ * Probes single cells of a partial solution for failed literals.
+ * <p>
+ * An unknown cell is set to black and propagated, then to white and
+ * propagated, and both tries are undone again. If one value contradicts the
+ * constraints, the cell must have the other value and is set on the trail of
+ * the {@link LinePropagator}, so it is cleared when the search backtracks. If
+ * both values contradict, the partial solution has no completion. Cells are
+ * probed until a pass finds no failed literal or the budget is used up.
+ * <p>
+ * For every probed cell the number of trail entries of both tries is kept,
+ * and the cell where both values narrow the search most is offered as the
+ * next cell to branch on.
+ */
+public final class CellProber {
+    private final LinePropagator propagator;
+    private final int budget;
+
+    // Cell to branch on,
+    // found by the last probe
+    private int bestRow = -1;
+    private int bestColumn = -1;
+    private long bestScore;
+
+    // Counters over all probes
+    private long probes;
+    private long failedLiterals;
+
+    /**
+     * Creates a prober working on the trail of a propagator.
+     *
+     * @param propagator Propagator of the search
+     * @param budget     Maximal number of cells probed per call of {@link #probe}
+     */
+    public CellProber(LinePropagator propagator, int budget) {
+        this.propagator = propagator;
+        this.budget = budget;
+    }
+
+    /**
+     * Probes unknown cells from a row on and sets all failed literals found.
+     * Cells are taken row by row, so the rows branched on next come first.
+     *
+     * @param solution Current solution, propagated
+     * @param fromRow  First row to probe
+     * @return False if a cell can have neither value
+     */
+    public boolean probe(NonogramSolver.NonogrammSolution solution, int fromRow) {
+        bestRow = -1;
+        bestColumn = -1;
+        bestScore = -1;
+
+        int probed = 0;
+        boolean fixed = true;
+        while (fixed && probed < budget) {
+            fixed = false;
+            for (int row = fromRow; row < solution.getN() && probed < budget; row++) {
+                for (int col = 0; col < solution.getM() && probed < budget; col++) {
+                    if (solution.get(row, col) != NonogramSolver.FIELD_UNKNOWN) {
+                        continue;
+                    }
+                    probed++;
+                    probes++;
+
+                    // Try both values
+                    int black = tryValue(solution, row, col, NonogramSolver.FIELD_BLACK);
+                    int white = black < 0 ? 0 : tryValue(solution, row, col, NonogramSolver.FIELD_WHITE);
+                    if (black < 0 || white < 0) {
+                        // Failed literal, so cell
+                        // has the other value
+                        failedLiterals++;
+                        propagator.assign(solution, row, col,
+                                black < 0 ? NonogramSolver.FIELD_WHITE : NonogramSolver.FIELD_BLACK);
+                        if (!propagator.propagate(solution)) {
+                            return false;
+                        }
+                        fixed = true;
+                        bestRow = -1;
+                        bestColumn = -1;
+                        bestScore = -1;
+                        continue;
+                    }
+
+                    // Prefer cells where
+                    // both values force much
+                    long score = (black + 1L) * (white + 1L);
+                    if (score > bestScore) {
+                        bestRow = row;
+                        bestColumn = col;
+                        bestScore = score;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets row of the cell to branch on.
+     *
+     * @return Row index, -1 if no cell was probed since the last failed literal
+     */
+    public int getBestRow() {
+        return bestRow;
+    }
+
+    /**
+     * Gets column of the cell to branch on.
+     *
+     * @return Column index, -1 if no cell was probed since the last failed literal
+     */
+    public int getBestColumn() {
+        return bestColumn;
+    }
+
+    /**
+     * Gets number of cells probed so far.
+     *
+     * @return Number of probed cells
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Gets number of failed literals found so far.
+     *
+     * @return Number of cells set by probing
+     */
+    public long getFailedLiterals() {
+        return failedLiterals;
+    }
+
+    /**
+     * Adds the counters of another prober, e.g. of a parallel task.
+     *
+     * @param other Prober to add
+     */
+    void add(CellProber other) {
+        probes += other.probes;
+        failedLiterals += other.failedLiterals;
+    }
+
+    /**
+     * Converts counters to a report line.
+     *
+     * @return Probed cells and failed literals
+     */
+    public String toString() {
+        return probes + " cell(s) probed, " + failedLiterals + " failed literal(s)";
+    }
+
+    /**
+     * Sets a cell, propagates and undoes both again.
+     *
+     * @param solution Current solution
+     * @param row      Row index
+     * @param col      Column index
+     * @param value    Value to try
+     * @return Number of trail entries the value caused, -1 if it contradicts the constraints
+     */
+    private int tryValue(NonogramSolver.NonogrammSolution solution, int row, int col, char value) {
+        int trailMark = propagator.getTrailSize();
+        propagator.assign(solution, row, col, value);
+        int result = propagator.propagate(solution) ? propagator.getTrailSize() - trailMark : -1;
+        propagator.undo(solution, trailMark);
+        return result;
+    }
+}
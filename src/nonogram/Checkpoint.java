@@ -0,0 +1,286 @@
+package nonogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Position of a {@link NonogramSolver} search, so a stopped search can be resumed.
+ * <p>
+ * The cursor holds one permutation index per row: rows before the last
+ * entry are set to the permutation with that index among those the search
+ * tries, and in the row of the last entry all permutations before that
+ * index are done. Together with the number of solutions found up to there,
+ * this is the whole state of the search, as block information and
+ * propagation follow from the rows set.
+ * <p>
+ * Checkpoints are small text files of {@code key value} lines, written to
+ * a temporary file first, forced to disk and moved into place, so a crash
+ * while writing leaves the previous checkpoint intact. Besides the puzzle
+ * and the branching they record the mode and the output format, as the
+ * solutions counted before the cursor are only valid for the same search
+ * and output file.
+ */
+public final class Checkpoint {
+    private final long puzzle;
+    private final boolean transposed;
+    private final int probeBudget;
+    private final SolutionMode mode;
+    private final SolutionWriter.Format format;
+    private final int[] cursor;
+    private final long solutions;
+    private final long nodes;
+
+    /**
+     * Creates a checkpoint.
+     *
+     * @param puzzle      Fingerprint of the searched constraints, see {@link #fingerprint(NonogramConstraints)}
+     * @param transposed  True if the search branches over columns
+     * @param probeBudget Cells probed per node, as the probing changes which permutations are tried
+     * @param mode        Mode of the search, as it decides which solutions are kept
+     * @param format      Format of the solutions stored by the sink, null if none are stored in a file
+     * @param cursor      Permutation index per row
+     * @param solutions   Number of solutions found before the cursor
+     * @param nodes       Number of nodes visited before the cursor
+     */
+    public Checkpoint(long puzzle, boolean transposed, int probeBudget, SolutionMode mode,
+                      SolutionWriter.Format format, int[] cursor, long solutions, long nodes) {
+        this.puzzle = puzzle;
+        this.transposed = transposed;
+        this.probeBudget = probeBudget;
+        this.mode = mode;
+        this.format = format;
+        this.cursor = cursor;
+        this.solutions = solutions;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Reads a checkpoint from a file.
+     *
+     * @param path Checkpoint file
+     * @return Checkpoint
+     * @throws IOException If file can not be read or is no checkpoint
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        long puzzle = 0;
+        boolean transposed = false;
+        int probeBudget = 0;
+        SolutionMode mode = null;
+        SolutionWriter.Format format = null;
+        int[] cursor = null;
+        long solutions = 0;
+        long nodes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(" ");
+                switch (parts[0]) {
+                    case "puzzle":
+                        puzzle = Long.parseUnsignedLong(parts[1], 16);
+                        break;
+                    case "orientation":
+                        transposed = parts[1].equals("columns");
+                        break;
+                    case "probe":
+                        probeBudget = Integer.parseInt(parts[1]);
+                        break;
+                    case "mode":
+                        mode = SolutionMode.parse(parts[1]);
+                        break;
+                    case "format":
+                        format = parts[1].equals("none") ? null : SolutionWriter.Format.valueOf(parts[1].toUpperCase());
+                        break;
+                    case "solutions":
+                        solutions = Long.parseLong(parts[1]);
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(parts[1]);
+                        break;
+                    case "cursor":
+                        cursor = new int[parts.length - 1];
+                        for (int i = 0; i < cursor.length; i++) {
+                            cursor[i] = Integer.parseInt(parts[i + 1]);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown checkpoint entry: " + parts[0]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid checkpoint " + path, e);
+        }
+        if (cursor == null || cursor.length == 0) {
+            throw new IOException("Checkpoint without cursor: " + path);
+        }
+        if (mode == null) {
+            throw new IOException("Checkpoint without mode: " + path);
+        }
+        return new Checkpoint(puzzle, transposed, probeBudget, mode, format, cursor, solutions, nodes);
+    }
+
+    /**
+     * Writes checkpoint to a file, replacing the previous one atomically.
+     * The new file is forced to disk before it replaces the old one.
+     *
+     * @param path Checkpoint file
+     * @throws IOException If file can not be written
+     */
+    public void write(Path path) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# nonogram checkpoint\n");
+        sb.append("puzzle ").append(Long.toHexString(puzzle)).append('\n');
+        sb.append("orientation ").append(transposed ? "columns" : "rows").append('\n');
+        sb.append("probe ").append(probeBudget).append('\n');
+        sb.append("mode ").append(mode).append('\n');
+        sb.append("format ").append(format == null ? "none" : format.name().toLowerCase()).append('\n');
+        sb.append("solutions ").append(solutions).append('\n');
+        sb.append("nodes ").append(nodes).append('\n');
+        sb.append("cursor");
+        for (int index : cursor) {
+            sb.append(' ').append(index);
+        }
+        sb.append('\n');
+
+        // Contents have to be on disk
+        // before the move is
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Calculates a fingerprint of constraints to tell whether a
+     * checkpoint belongs to a puzzle.
+     *
+     * @param constraints Constraints
+     * @return CRC-32 of size and blocks, each taken as two bytes
+     */
+    public static long fingerprint(NonogramConstraints constraints) {
+        CRC32 crc = new CRC32();
+        crc.update(constraints.getM());
+        crc.update(constraints.getM() >>> 8);
+        crc.update(constraints.getN());
+        crc.update(constraints.getN() >>> 8);
+        for (int row = 0; row < constraints.getN(); row++) {
+            update(crc, constraints.getRowBlocks(row));
+        }
+        for (int col = 0; col < constraints.getM(); col++) {
+            update(crc, constraints.getColumnBlocks(col));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Adds blocks of a line to a checksum.
+     *
+     * @param crc    Checksum
+     * @param blocks Block lengths
+     */
+    private static void update(CRC32 crc, int[] blocks) {
+        crc.update(blocks.length);
+        for (int block : blocks) {
+            crc.update(block);
+            crc.update(block >>> 8);
+        }
+    }
+
+    /**
+     * Gets fingerprint of the searched constraints.
+     *
+     * @return CRC-32 of size and blocks
+     */
+    public long getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * Checks whether the search branches over columns.
+     *
+     * @return True if the constraints are transposed
+     */
+    public boolean isTransposed() {
+        return transposed;
+    }
+
+    /**
+     * Gets number of cells probed per node.
+     *
+     * @return Probe budget, 0 if not probing
+     */
+    public int getProbeBudget() {
+        return probeBudget;
+    }
+
+    /**
+     * Gets mode of the search.
+     *
+     * @return Mode
+     */
+    public SolutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets format of the stored solutions.
+     *
+     * @return Output format, null if no solutions are stored in a file
+     */
+    public SolutionWriter.Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets position of the search.
+     *
+     * @return Permutation index per row up to the row of the last entry
+     */
+    public int[] getCursor() {
+        return cursor.clone();
+    }
+
+    /**
+     * Gets number of solutions found before the cursor.
+     *
+     * @return Number of solutions
+     */
+    public long getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets number of nodes visited before the cursor.
+     *
+     * @return Number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Converts checkpoint to a report line.
+     *
+     * @return Solutions, nodes and cursor
+     */
+    public String toString() {
+        return solutions + " solution(s), " + nodes + " nodes, cursor " + Arrays.toString(cursor);
+    }
+}
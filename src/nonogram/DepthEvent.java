@@ -0,0 +1,32 @@
+package nonogram;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event with the counters of one row depth of a solve.
+ * Committed once per depth when the solve is done.
+ */
+@Name("nonogram.Depth")
+@Label("Nonogram Search Depth")
+@Category("Nonogram")
+@Description("Search counters of one row depth")
+final class DepthEvent extends Event {
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Permutations")
+    long permutations;
+
+    @Label("Prunes")
+    long prunes;
+
+    @Label("Backtracks")
+    long backtracks;
+}
@@ -0,0 +1,299 @@
+package nonogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches a nonogram by assigning whole rows or columns in a dynamic order.
+ * <p>
+ * At every node the row or column with the fewest permutations left which
+ * agree with the known cells is assigned next, rows first on ties. All other
+ * lines are checked by the {@link LinePropagator} on the full grid, so no
+ * top-down order is assumed. Solutions are the same as found by
+ * {@link NonogramSolver}, but may come in a different order.
+ * <p>
+ * With a probe budget set, every node is probed by a {@link CellProber} first
+ * and the search branches on the cell it offers, black before white. Lines are
+ * only assigned if no cell could be probed.
+ */
+public final class DynamicSearch {
+    private final NonogramConstraints constraints;
+    private final SolutionMode mode;
+    private final LinePropagator propagator;
+
+    // Permutation generators and known cells
+    // per line, rows first then columns
+    private final PermutationGenerator[] permutations;
+    private final long[][] expectedBlack;
+    private final long[][] expectedWhite;
+
+    // Counting of permutations left per line
+    private final LineSolver lineSolver;
+    private final char[] cells;
+
+    // Failed literal detection and cell choice,
+    // null if branching on lines only
+    private CellProber prober;
+
+    // Calculated solutions
+    private final List<NonogramSolver.NonogrammSolution> solutions = new ArrayList<>();
+    private SolutionSink sink = solution -> solutions.add(solution.copy());
+    private long numberOfSolutions;
+    private long numberOfNodes;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a search with its own state.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     * @param mode        Defines how many solutions are searched
+     */
+    public DynamicSearch(NonogramConstraints constraints, SolutionMode mode) {
+        this.constraints = constraints;
+        this.mode = mode;
+        this.propagator = new LinePropagator(constraints, true);
+
+        int n = constraints.getN();
+        int m = constraints.getM();
+        this.permutations = new PermutationGenerator[n + m];
+        this.expectedBlack = new long[n + m][];
+        this.expectedWhite = new long[n + m][];
+        for (int line = 0; line < n + m; line++) {
+            permutations[line] = line < n
+                    ? constraints.createRowPermutations(line)
+                    : constraints.createColumnPermutations(line - n);
+            expectedBlack[line] = new long[RowMask.words(getLength(line))];
+            expectedWhite[line] = new long[RowMask.words(getLength(line))];
+        }
+
+        int maxBlocks = 0;
+        for (int line = 0; line < n + m; line++) {
+            maxBlocks = Math.max(maxBlocks, getBlocks(line).length);
+        }
+        this.lineSolver = new LineSolver(Math.max(n, m), maxBlocks);
+        this.cells = new char[Math.max(n, m)];
+    }
+
+    /**
+     * Sets where found solutions go to.
+     *
+     * @param sink Receiver of solutions
+     */
+    public void setSolutionSink(SolutionSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets how many cells are probed per node to find failed literals
+     * and the cell to branch on.
+     *
+     * @param probeBudget Maximal number of cells probed per node, 0 to branch on lines only
+     */
+    public void setProbeBudget(int probeBudget) {
+        this.prober = probeBudget > 0 ? new CellProber(propagator, probeBudget) : null;
+    }
+
+    /**
+     * Gets the prober finding failed literals.
+     *
+     * @return Prober, null if branching on lines only
+     */
+    public CellProber getProber() {
+        return prober;
+    }
+
+    /**
+     * Gets solutions found so far.
+     *
+     * @return Calculated solutions, empty if a sink is set
+     */
+    public List<NonogramSolver.NonogrammSolution> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets number of visited nodes.
+     *
+     * @return Number of calls of the backtracking step
+     */
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Stops the search as soon as possible.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Solves the nonogram from an empty grid.
+     *
+     * @return Number of solutions found
+     */
+    public long solve() {
+        NonogramSolver.NonogrammSolution solution =
+                new NonogramSolver.NonogrammSolution(constraints.getN(), constraints.getM());
+        propagator.markAllDirty();
+        return propagator.propagate(solution) ? solve(solution) : 0;
+    }
+
+    /**
+     * Assigns the most constrained line and solves the rest recursively.
+     *
+     * @param solution Current solution, propagated
+     * @return Number of solutions found
+     */
+    private long solve(NonogramSolver.NonogrammSolution solution) {
+        numberOfNodes++;
+        if (prober != null) {
+            if (!prober.probe(solution, 0)) {
+                return 0;
+            }
+            if (prober.getBestRow() >= 0) {
+                return solveCell(solution, prober.getBestRow(), prober.getBestColumn());
+            }
+        }
+
+        // Find line with fewest permutations
+        int bestLine = -1;
+        long bestCount = Long.MAX_VALUE;
+        for (int line = 0; line < permutations.length && bestCount > 1; line++) {
+            if (!hasUnknownCells(solution, line)) {
+                continue;
+            }
+            long count = countPermutations(solution, line);
+            if (count < bestCount) {
+                bestLine = line;
+                bestCount = count;
+            }
+        }
+
+        if (bestLine < 0) {
+            // All fields set
+            numberOfSolutions++;
+            if (mode.isKeepSolutions()) {
+                sink.accept(solution);
+            }
+            return 1;
+        }
+
+        // Try every permutation of the line
+        long numberOfSolutions = 0;
+        PermutationGenerator generator = permutations[bestLine];
+        generator.reset(expectedBlack[bestLine], expectedWhite[bestLine]);
+        while (!isStopped() && generator.next()) {
+            int trailMark = propagator.getTrailSize();
+            long[] line = generator.getRow();
+            for (int i = 0; i < getLength(bestLine); i++) {
+                int row = bestLine < constraints.getN() ? bestLine : i;
+                int col = bestLine < constraints.getN() ? i : bestLine - constraints.getN();
+                if (solution.get(row, col) == NonogramSolver.FIELD_UNKNOWN) {
+                    propagator.assign(solution, row, col,
+                            RowMask.isBlack(line, 0, i) ? NonogramSolver.FIELD_BLACK : NonogramSolver.FIELD_WHITE);
+                }
+            }
+
+            if (propagator.propagate(solution)) {
+                numberOfSolutions += solve(solution);
+            }
+            propagator.undo(solution, trailMark);
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Sets a cell black and then white and solves the rest recursively.
+     *
+     * @param solution Current solution, propagated
+     * @param row      Row index of an unknown cell
+     * @param col      Column index of an unknown cell
+     * @return Number of solutions found
+     */
+    private long solveCell(NonogramSolver.NonogrammSolution solution, int row, int col) {
+        long numberOfSolutions = 0;
+        for (char value : new char[]{NonogramSolver.FIELD_BLACK, NonogramSolver.FIELD_WHITE}) {
+            if (isStopped()) {
+                break;
+            }
+            int trailMark = propagator.getTrailSize();
+            propagator.assign(solution, row, col, value);
+            if (propagator.propagate(solution)) {
+                numberOfSolutions += solve(solution);
+            }
+            propagator.undo(solution, trailMark);
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Checks whether the search has to stop.
+     *
+     * @return True if cancelled or enough solutions found
+     */
+    private boolean isStopped() {
+        return cancelled || mode.isLimitReached(numberOfSolutions);
+    }
+
+    /**
+     * Counts permutations of a line which agree with the known cells,
+     * by the dynamic program of the {@link LineSolver} rather than by
+     * enumerating them. Known cells are kept as masks for the branching.
+     *
+     * @param solution Current solution
+     * @param line     Line index
+     * @return Number of permutations, {@link Long#MAX_VALUE} if more
+     */
+    private long countPermutations(NonogramSolver.NonogrammSolution solution, int line) {
+        long[] black = expectedBlack[line];
+        long[] white = expectedWhite[line];
+        for (int w = 0; w < black.length; w++) {
+            black[w] = 0;
+            white[w] = 0;
+        }
+        for (int i = 0; i < getLength(line); i++) {
+            char cell = getCell(solution, line, i);
+            if (cell == NonogramSolver.FIELD_BLACK) {
+                RowMask.setBlack(black, i);
+            } else if (cell == NonogramSolver.FIELD_WHITE) {
+                RowMask.setBlack(white, i);
+            }
+            cells[i] = cell;
+        }
+        return (long) lineSolver.count(getBlocks(line), cells, getLength(line));
+    }
+
+    /**
+     * Checks whether a line still has unknown cells.
+     *
+     * @param solution Current solution
+     * @param line     Line index
+     * @return True if line is not solved yet
+     */
+    private boolean hasUnknownCells(NonogramSolver.NonogrammSolution solution, int line) {
+        for (int i = 0; i < getLength(line); i++) {
+            if (getCell(solution, line, i) == NonogramSolver.FIELD_UNKNOWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private char getCell(NonogramSolver.NonogrammSolution solution, int line, int index) {
+        return line < constraints.getN()
+                ? solution.get(line, index)
+                : solution.get(index, line - constraints.getN());
+    }
+
+    private int[] getBlocks(int line) {
+        return line < constraints.getN()
+                ? constraints.getRowBlocks(line)
+                : constraints.getColumnBlocks(line - constraints.getN());
+    }
+
+    private int getLength(int line) {
+        return line < constraints.getN() ? constraints.getM() : constraints.getN();
+    }
+}
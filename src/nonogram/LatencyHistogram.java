@@ -0,0 +1,118 @@
+package nonogram;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets of growing width to tell percentiles.
+ * <p>
+ * Every power of two is split into 16 buckets, so a percentile is off by
+ * at most 1/16 of its value, however large it is. Recording does not lock
+ * and does not allocate, so the histogram may be shared by all threads.
+ */
+public final class LatencyHistogram {
+    // Buckets per power of two
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets number of recorded durations.
+     *
+     * @return Number of durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the duration which a share of all durations does not exceed.
+     *
+     * @param percentile Share between 0 and 1, e.g. 0.99
+     * @return Upper end of the bucket of the percentile in nanoseconds, 0 if nothing recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Converts histogram to a report line.
+     *
+     * @return Count, mean, p50, p99 and max
+     */
+    public String toString() {
+        long total = getCount();
+        return String.format("%d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                total, total == 0 ? 0 : sum.sum() / 1e6 / total, getPercentile(0.5) / 1e6,
+                getPercentile(0.99) / 1e6, getMax() / 1e6);
+    }
+
+    /**
+     * Calculates the bucket of a value.
+     *
+     * @param value Non-negative value
+     * @return Bucket index
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Calculates the largest value of a bucket.
+     *
+     * @param index Bucket index
+     * @return Largest value counted in the bucket
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
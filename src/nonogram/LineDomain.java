@@ -0,0 +1,98 @@
+package nonogram;
+
+/**
+ * Candidate permutations of a row or column, indexed for bitset filtering.
+ * <p>
+ * Every permutation gets a bit index. For every cell the set of candidates
+ * with a black cell there is stored as bitset, so all candidates disagreeing
+ * with a known cell are dropped with one AND per word, and whether any
+ * remaining candidate supports black or white is a single scan. The table is
+ * immutable and shared, the remaining candidates are kept by the user.
+ */
+public final class LineDomain {
+    private final int size;
+    private final int words;
+
+    // Candidates black at a cell,
+    // one bitset per cell
+    private final long[][] blackAt;
+
+    private LineDomain(int size, int length) {
+        this.size = size;
+        this.words = RowMask.words(size);
+        this.blackAt = new long[length][words];
+    }
+
+    /**
+     * Enumerates the permutations of a line.
+     *
+     * @param blocks  Block lengths of the line
+     * @param length  Length of the line
+     * @param maxSize Maximal number of candidates
+     * @return Domain of the line, or null if it has more candidates than allowed
+     */
+    public static LineDomain create(int[] blocks, int length, int maxSize) {
+        long[] none = new long[RowMask.words(length)];
+        PermutationGenerator permutations = new PermutationGenerator(blocks, length);
+
+        // Count permutations first
+        int size = 0;
+        permutations.reset(none, none);
+        while (permutations.next()) {
+            if (++size > maxSize) {
+                return null;
+            }
+        }
+
+        LineDomain domain = new LineDomain(size, length);
+        int candidate = 0;
+        permutations.reset(none, none);
+        while (permutations.next()) {
+            long[] row = permutations.getRow();
+            for (int i = 0; i < length; i++) {
+                if (RowMask.isBlack(row, 0, i)) {
+                    RowMask.setBlack(domain.blackAt[i], candidate);
+                }
+            }
+            candidate++;
+        }
+        return domain;
+    }
+
+    /**
+     * Gets number of candidates.
+     *
+     * @return Number of permutations of the line
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets length of the line.
+     *
+     * @return Number of cells
+     */
+    public int getLength() {
+        return blackAt.length;
+    }
+
+    /**
+     * Gets number of words of a candidate bitset.
+     *
+     * @return Number of longs per bitset
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * Gets candidates with a black cell.
+     *
+     * @param index Cell index
+     * @return Bitset of candidates, must not be modified
+     */
+    public long[] getBlackAt(int index) {
+        return blackAt[index];
+    }
+}
@@ -0,0 +1,173 @@
+package nonogram;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches candidate domains of lines by clue and length.
+ * <p>
+ * Short clues like {@code 1} or {@code 2 2} repeat across rows, columns and
+ * puzzles, so their domains are built once and shared by all solves of the
+ * JVM. The cache holds the least recently used domains up to a number of
+ * words, lines with too many candidates are remembered as well. Domains are
+ * built outside the lock, so two threads may build the same domain once.
+ */
+public final class LineDomainCache {
+    /** Default capacity, in longs of domain tables */
+    public static final long DEFAULT_CAPACITY = 1L << 22;
+
+    private static final LineDomainCache SHARED = new LineDomainCache(DEFAULT_CAPACITY);
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Optional<LineDomain>> domains = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity Maximal number of longs of all cached domain tables
+     */
+    public LineDomainCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the cache shared by all solvers.
+     *
+     * @return Shared cache
+     */
+    public static LineDomainCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the domain of a line, building it if not cached.
+     *
+     * @param blocks  Block lengths of the line, not modified afterwards
+     * @param length  Length of the line
+     * @param maxSize Maximal number of candidates
+     * @return Domain of the line, or null if it has more candidates than allowed
+     */
+    public LineDomain get(int[] blocks, int length, int maxSize) {
+        Key key = new Key(blocks, length, maxSize);
+        Optional<LineDomain> domain;
+        synchronized (this) {
+            domain = domains.get(key);
+        }
+        if (domain != null) {
+            hits.increment();
+            return domain.orElse(null);
+        }
+
+        misses.increment();
+        domain = Optional.ofNullable(LineDomain.create(blocks, length, maxSize));
+        synchronized (this) {
+            if (domains.put(key, domain) == null) {
+                weight += weight(domain);
+            }
+
+            // Drop least recently used domains
+            Iterator<Map.Entry<Key, Optional<LineDomain>>> eldest = domains.entrySet().iterator();
+            while (weight > capacity && eldest.hasNext()) {
+                weight -= weight(eldest.next().getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return domain.orElse(null);
+    }
+
+    /**
+     * Gets number of lookups answered from the cache.
+     *
+     * @return Number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets number of domains built.
+     *
+     * @return Number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets number of domains dropped to stay within capacity.
+     *
+     * @return Number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets number of cached lines.
+     *
+     * @return Number of entries
+     */
+    public synchronized int size() {
+        return domains.size();
+    }
+
+    /**
+     * Converts statistics to a report line.
+     *
+     * @return Hits, misses, evictions and size
+     */
+    public String toString() {
+        long lookups = getHits() + getMisses();
+        synchronized (this) {
+            return String.format("%d of %d lookups hit (%.1f %%), %d evictions, %d lines in %d words",
+                    getHits(), lookups, lookups == 0 ? 0 : 100.0 * getHits() / lookups, getEvictions(),
+                    domains.size(), weight);
+        }
+    }
+
+    private static long weight(Optional<LineDomain> domain) {
+        return domain.map(d -> (long) d.getLength() * d.getWords()).orElse(0L) + 1;
+    }
+
+    /**
+     * Clue and length of a line.
+     */
+    private static final class Key {
+        private final int[] blocks;
+        private final int length;
+        private final int maxSize;
+        private final int hash;
+
+        Key(int[] blocks, int length, int maxSize) {
+            this.blocks = blocks;
+            this.length = length;
+            this.maxSize = maxSize;
+            this.hash = 31 * (31 * Arrays.hashCode(blocks) + length) + maxSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return length == key.length && maxSize == key.maxSize && Arrays.equals(blocks, key.blocks);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
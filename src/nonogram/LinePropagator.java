@@ -0,0 +1,332 @@
+package nonogram;
+
+import java.util.Arrays;
+
+/**
+ * Propagates row and column constraints on a partial solution.
+ * <p>
+ * Every changed row or column is solved again with the {@link LineSolver} until
+ * no more cells are forced. Cells set by the propagation are recorded on a
+ * trail so they can be cleared again when backtracking.
+ * <p>
+ * With candidate domains every line keeps the set of its permutations still
+ * possible instead. Candidates disagreeing with a known cell are dropped, and
+ * a cell is forced once all remaining candidates agree on it. As crossing
+ * lines only meet in cells, this is AC-3 between the row and column domains
+ * with the grid as queue. Lines with too many permutations, see
+ * {@link NonogramConstraints#MAX_DOMAIN_SIZE}, still use the line solver.
+ */
+public final class LinePropagator {
+    private final NonogramConstraints constraints;
+    private final LineSolver lineSolver;
+    private final char[] line;
+
+    // Lines which have to be solved again
+    private final boolean[] dirtyRows;
+    private final boolean[] dirtyColumns;
+
+    // Candidate domains, rows then columns,
+    // null for lines solved by the line solver
+    private final LineDomain[] domains;
+    private final int[] domainOffsets;
+    private final long[] candidates;
+
+    // Trail of cells set by propagation as row * m + column,
+    // and of changed candidate words as -1 - word with its old value
+    private int[] trail;
+    private long[] trailWords;
+    private int trailSize;
+
+    /**
+     * Creates a propagator for a nonogram using the line solver only.
+     *
+     * @param constraints Row and column constraints
+     */
+    public LinePropagator(NonogramConstraints constraints) {
+        this(constraints, false);
+    }
+
+    /**
+     * Creates a propagator for a nonogram.
+     *
+     * @param constraints Row and column constraints
+     * @param useDomains  True to filter candidate domains of lines
+     */
+    public LinePropagator(NonogramConstraints constraints, boolean useDomains) {
+        this.constraints = constraints;
+
+        int maxLength = Math.max(constraints.getN(), constraints.getM());
+        int maxBlocks = 0;
+        for (int row = 0; row < constraints.getN(); row++) {
+            maxBlocks = Math.max(maxBlocks, constraints.getRowBlocks(row).length);
+        }
+        for (int col = 0; col < constraints.getM(); col++) {
+            maxBlocks = Math.max(maxBlocks, constraints.getColumnBlocks(col).length);
+        }
+
+        this.lineSolver = new LineSolver(maxLength, maxBlocks);
+        this.line = new char[maxLength];
+        this.dirtyRows = new boolean[constraints.getN()];
+        this.dirtyColumns = new boolean[constraints.getM()];
+        this.trail = new int[constraints.getN() * constraints.getM()];
+        this.trailWords = new long[trail.length];
+
+        // All candidates possible at first
+        int lines = constraints.getN() + constraints.getM();
+        this.domains = useDomains ? constraints.getLineDomains() : new LineDomain[lines];
+        this.domainOffsets = new int[lines];
+        int words = 0;
+        for (int i = 0; i < lines; i++) {
+            domainOffsets[i] = words;
+            words += domains[i] == null ? 0 : domains[i].getWords();
+        }
+        this.candidates = new long[words];
+        for (int i = 0; i < lines; i++) {
+            if (domains[i] != null) {
+                int size = domains[i].getSize();
+                for (int c = 0; c < size; c++) {
+                    RowMask.setBlack(candidates, (domainOffsets[i] << 6) + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks all rows and columns to be solved.
+     */
+    public void markAllDirty() {
+        for (int row = 0; row < dirtyRows.length; row++) {
+            dirtyRows[row] = true;
+        }
+        for (int col = 0; col < dirtyColumns.length; col++) {
+            dirtyColumns[col] = true;
+        }
+    }
+
+    /**
+     * Marks a column to be solved.
+     *
+     * @param colIndex Column index
+     */
+    public void markColumnDirty(int colIndex) {
+        dirtyColumns[colIndex] = true;
+    }
+
+    /**
+     * Gets current trail position.
+     *
+     * @return Number of cells and candidate words changed so far
+     */
+    public int getTrailSize() {
+        return trailSize;
+    }
+
+    /**
+     * Solves marked rows and columns until no more cells are forced.
+     *
+     * @param solution Current solution, forced cells are set
+     * @return False if a row or column can not be fulfilled anymore
+     */
+    public boolean propagate(NonogramSolver.NonogrammSolution solution) {
+        int n = constraints.getN();
+        int m = constraints.getM();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Solve rows
+            for (int row = 0; row < n; row++) {
+                if (!dirtyRows[row]) {
+                    continue;
+                }
+                dirtyRows[row] = false;
+
+                for (int col = 0; col < m; col++) {
+                    line[col] = solution.get(row, col);
+                }
+                if (!solveLine(row, constraints.getRowBlocks(row), m)) {
+                    clearDirty();
+                    return false;
+                }
+                for (int col = 0; col < m; col++) {
+                    if (line[col] != solution.get(row, col)) {
+                        // Cell is forced
+                        setCell(solution, row, col, line[col]);
+                        dirtyColumns[col] = true;
+                        changed = true;
+                    }
+                }
+            }
+
+            // Solve columns
+            for (int col = 0; col < m; col++) {
+                if (!dirtyColumns[col]) {
+                    continue;
+                }
+                dirtyColumns[col] = false;
+
+                for (int row = 0; row < n; row++) {
+                    line[row] = solution.get(row, col);
+                }
+                if (!solveLine(n + col, constraints.getColumnBlocks(col), n)) {
+                    clearDirty();
+                    return false;
+                }
+                for (int row = 0; row < n; row++) {
+                    if (line[row] != solution.get(row, col)) {
+                        // Cell is forced
+                        setCell(solution, row, col, line[row]);
+                        dirtyRows[row] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets a cell chosen by the search and marks its row and column to be solved.
+     * The cell is recorded on the trail like a forced cell.
+     *
+     * @param solution Current solution
+     * @param row      Row index
+     * @param col      Column index
+     * @param value    Value of cell
+     */
+    public void assign(NonogramSolver.NonogrammSolution solution, int row, int col, char value) {
+        setCell(solution, row, col, value);
+        dirtyRows[row] = true;
+        dirtyColumns[col] = true;
+    }
+
+    /**
+     * Clears cells set by propagation since a trail position.
+     *
+     * @param solution  Current solution
+     * @param trailMark Trail position to go back to
+     */
+    public void undo(NonogramSolver.NonogrammSolution solution, int trailMark) {
+        int m = constraints.getM();
+        while (trailSize > trailMark) {
+            int cell = trail[--trailSize];
+            if (cell < 0) {
+                candidates[-1 - cell] = trailWords[trailSize];
+            } else {
+                solution.set(cell / m, cell % m, NonogramSolver.FIELD_UNKNOWN);
+            }
+        }
+    }
+
+    /**
+     * Solves the line in the line buffer.
+     *
+     * @param lineIndex Index of row, or n plus index of column
+     * @param blocks    Block lengths of the line
+     * @param length    Length of the line
+     * @return False if the line can not be fulfilled anymore
+     */
+    private boolean solveLine(int lineIndex, int[] blocks, int length) {
+        LineDomain domain = domains[lineIndex];
+        if (domain == null) {
+            return lineSolver.solve(blocks, line, length);
+        }
+
+        // Drop candidates disagreeing with known cells
+        int offset = domainOffsets[lineIndex];
+        int words = domain.getWords();
+        for (int i = 0; i < length; i++) {
+            if (line[i] == NonogramSolver.FIELD_UNKNOWN) {
+                continue;
+            }
+            long[] blackAt = domain.getBlackAt(i);
+            boolean black = line[i] == NonogramSolver.FIELD_BLACK;
+            for (int w = 0; w < words; w++) {
+                long value = candidates[offset + w] & (black ? blackAt[w] : ~blackAt[w]);
+                if (value != candidates[offset + w]) {
+                    setWord(offset + w, value);
+                }
+            }
+        }
+
+        // Check which values remain supported
+        // in unknown cells
+        boolean empty = true;
+        for (int w = 0; w < words && empty; w++) {
+            empty = candidates[offset + w] == 0;
+        }
+        if (empty) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line[i] != NonogramSolver.FIELD_UNKNOWN) {
+                continue;
+            }
+            long[] blackAt = domain.getBlackAt(i);
+            boolean canBeBlack = false;
+            boolean canBeWhite = false;
+            for (int w = 0; w < words && !(canBeBlack && canBeWhite); w++) {
+                canBeBlack |= (candidates[offset + w] & blackAt[w]) != 0;
+                canBeWhite |= (candidates[offset + w] & ~blackAt[w]) != 0;
+            }
+            if (!canBeWhite) {
+                line[i] = NonogramSolver.FIELD_BLACK;
+            } else if (!canBeBlack) {
+                line[i] = NonogramSolver.FIELD_WHITE;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Changes a word of the candidate domains and records its old value on the trail.
+     *
+     * @param word  Index of word
+     * @param value New value
+     */
+    private void setWord(int word, long value) {
+        if (trailSize == trail.length) {
+            growTrail();
+        }
+        trailWords[trailSize] = candidates[word];
+        trail[trailSize++] = -1 - word;
+        candidates[word] = value;
+    }
+
+    /**
+     * Sets a forced cell and records it on the trail.
+     *
+     * @param solution Current solution
+     * @param row      Row index
+     * @param col      Column index
+     * @param value    Forced value
+     */
+    private void setCell(NonogramSolver.NonogrammSolution solution, int row, int col, char value) {
+        if (trailSize == trail.length) {
+            growTrail();
+        }
+        solution.set(row, col, value);
+        trail[trailSize++] = row * constraints.getM() + col;
+    }
+
+    /**
+     * Makes room for more trail entries.
+     */
+    private void growTrail() {
+        trail = Arrays.copyOf(trail, Math.max(16, trail.length * 2));
+        trailWords = Arrays.copyOf(trailWords, trail.length);
+    }
+
+    /**
+     * Resets all marks after a contradiction.
+     */
+    private void clearDirty() {
+        for (int row = 0; row < dirtyRows.length; row++) {
+            dirtyRows[row] = false;
+        }
+        for (int col = 0; col < dirtyColumns.length; col++) {
+            dirtyColumns[col] = false;
+        }
+    }
+}
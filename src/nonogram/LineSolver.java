@@ -0,0 +1,249 @@
+package nonogram;
+
+import java.util.Random;
+
+/**
+ * Determines forced cells of a single row or column.
+ * <p>
+ * Uses dynamic programming over cells and blocks: a prefix table tells whether
+ * the first cells of the line can hold the first blocks, a suffix table whether
+ * the remaining cells can hold the remaining blocks. A cell is forced if it is
+ * black in all placements which agree with the known cells, or white in all of
+ * them. Solving a line takes O(length * blocks).
+ */
+public final class LineSolver {
+    // Tables with (length + 1) x (blocks + 1) entries
+    private final int stride;
+    private final boolean[] prefix;
+    private final boolean[] suffix;
+
+    // Number of white cells before a cell
+    private final int[] whiteCount;
+
+    // Difference array counting placements
+    // covering a cell with a block
+    private final int[] blackCover;
+
+    // Placements of the prefix table,
+    // built on demand for counting
+    private double[] ways;
+
+    /**
+     * Creates a line solver.
+     *
+     * @param maxLength Maximal length of a line
+     * @param maxBlocks Maximal number of blocks of a line
+     */
+    public LineSolver(int maxLength, int maxBlocks) {
+        this.stride = maxBlocks + 1;
+        this.prefix = new boolean[(maxLength + 1) * stride];
+        this.suffix = new boolean[(maxLength + 1) * stride];
+        this.whiteCount = new int[maxLength + 1];
+        this.blackCover = new int[maxLength + 1];
+    }
+
+    /**
+     * Sets all forced cells of a line.
+     *
+     * @param blocks Block lengths of the line
+     * @param line   Cells of the line, forced cells are written back
+     * @param length Length of the line
+     * @return False if no placement of the blocks fits the known cells
+     */
+    public boolean solve(int[] blocks, char[] line, int length) {
+        int k = blocks.length;
+
+        // Count white cells
+        whiteCount[0] = 0;
+        for (int i = 0; i < length; i++) {
+            whiteCount[i + 1] = whiteCount[i] + (line[i] == NonogramSolver.FIELD_WHITE ? 1 : 0);
+        }
+
+        // Prefix: cells [0, i) hold blocks [0, j)
+        for (int j = 0; j <= k; j++) {
+            prefix[j] = j == 0;
+        }
+        for (int i = 1; i <= length; i++) {
+            for (int j = 0; j <= k; j++) {
+                boolean possible = canBeWhite(line, i - 1) && prefix[(i - 1) * stride + j];
+                if (!possible && j > 0) {
+                    // Block j - 1 ends right before i
+                    int blockStart = i - blocks[j - 1];
+                    possible = blockStart >= 0 && canBeBlack(blockStart, i)
+                            && fitsLeft(line, blockStart, j - 1);
+                }
+                prefix[i * stride + j] = possible;
+            }
+        }
+
+        if (!prefix[length * stride + k]) {
+            // Blocks do not fit at all
+            return false;
+        }
+
+        // Suffix: cells [i, length) hold blocks [j, k)
+        for (int j = 0; j <= k; j++) {
+            suffix[length * stride + j] = j == k;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            for (int j = 0; j <= k; j++) {
+                boolean possible = canBeWhite(line, i) && suffix[(i + 1) * stride + j];
+                if (!possible && j < k) {
+                    // Block j starts at i
+                    int blockEnd = i + blocks[j];
+                    possible = blockEnd <= length && canBeBlack(i, blockEnd)
+                            && fitsRight(line, blockEnd, j + 1, length);
+                }
+                suffix[i * stride + j] = possible;
+            }
+        }
+
+        // Mark cells covered by any valid block placement
+        for (int i = 0; i <= length; i++) {
+            blackCover[i] = 0;
+        }
+        for (int j = 0; j < k; j++) {
+            for (int start = 0; start + blocks[j] <= length; start++) {
+                int end = start + blocks[j];
+                if (canBeBlack(start, end) && fitsLeft(line, start, j) && fitsRight(line, end, j + 1, length)) {
+                    blackCover[start]++;
+                    blackCover[end]--;
+                }
+            }
+        }
+
+        // Set forced cells
+        int cover = 0;
+        for (int i = 0; i < length; i++) {
+            cover += blackCover[i];
+            boolean black = cover > 0;
+            boolean white = false;
+            if (canBeWhite(line, i)) {
+                for (int j = 0; j <= k && !white; j++) {
+                    white = prefix[i * stride + j] && suffix[(i + 1) * stride + j];
+                }
+            }
+
+            if (!black && !white) {
+                return false;
+            } else if (!white) {
+                line[i] = NonogramSolver.FIELD_BLACK;
+            } else if (!black) {
+                line[i] = NonogramSolver.FIELD_WHITE;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts placements of the blocks which agree with the known cells.
+     *
+     * @param blocks Block lengths of the line
+     * @param line   Cells of the line, not changed
+     * @param length Length of the line
+     * @return Number of placements, 0 if none fits
+     */
+    public double count(int[] blocks, char[] line, int length) {
+        int k = blocks.length;
+        if (ways == null) {
+            ways = new double[prefix.length];
+        }
+
+        whiteCount[0] = 0;
+        for (int i = 0; i < length; i++) {
+            whiteCount[i + 1] = whiteCount[i] + (line[i] == NonogramSolver.FIELD_WHITE ? 1 : 0);
+        }
+
+        // Placements of blocks [0, j) in cells [0, i)
+        for (int j = 0; j <= k; j++) {
+            ways[j] = j == 0 ? 1 : 0;
+        }
+        for (int i = 1; i <= length; i++) {
+            for (int j = 0; j <= k; j++) {
+                double sum = canBeWhite(line, i - 1) ? ways[(i - 1) * stride + j] : 0;
+                if (j > 0) {
+                    // Block j - 1 ends right before i
+                    int blockStart = i - blocks[j - 1];
+                    if (blockStart == 0 && j == 1) {
+                        sum += canBeBlack(0, i) ? 1 : 0;
+                    } else if (blockStart > 0 && canBeBlack(blockStart, i) && canBeWhite(line, blockStart - 1)) {
+                        sum += ways[(blockStart - 1) * stride + j - 1];
+                    }
+                }
+                ways[i * stride + j] = sum;
+            }
+        }
+        return ways[length * stride + k];
+    }
+
+    /**
+     * Picks one of the placements counted by the last call of
+     * {@link #count(int[], char[], int)}, each with the same probability.
+     *
+     * @param blocks Block lengths of the line, as counted
+     * @param line   Cells of the line, as counted, all cells are written back
+     * @param length Length of the line
+     * @param random Source of randomness
+     */
+    public void sample(int[] blocks, char[] line, int length, Random random) {
+        int i = length;
+        int j = blocks.length;
+        while (i > 0) {
+            double white = canBeWhite(line, i - 1) ? ways[(i - 1) * stride + j] : 0;
+            if (j == 0 || random.nextDouble() * ways[i * stride + j] < white) {
+                line[--i] = NonogramSolver.FIELD_WHITE;
+                continue;
+            }
+
+            // Block j - 1 ends right before i
+            int blockStart = i - blocks[--j];
+            while (i > blockStart) {
+                line[--i] = NonogramSolver.FIELD_BLACK;
+            }
+            if (i > 0) {
+                line[--i] = NonogramSolver.FIELD_WHITE;
+            }
+        }
+    }
+
+    /**
+     * Checks whether blocks before a block fit left of it.
+     *
+     * @param line       Cells of the line
+     * @param blockStart Start of the block
+     * @param blockIndex Index of the block
+     * @return True if cells before the block can hold all previous blocks
+     */
+    private boolean fitsLeft(char[] line, int blockStart, int blockIndex) {
+        if (blockStart == 0) {
+            return blockIndex == 0;
+        }
+        // Space before block
+        return canBeWhite(line, blockStart - 1) && prefix[(blockStart - 1) * stride + blockIndex];
+    }
+
+    /**
+     * Checks whether blocks after a block fit right of it.
+     *
+     * @param line       Cells of the line
+     * @param blockEnd   End of the block, exclusive
+     * @param blockIndex Index of the next block
+     * @param length     Length of the line
+     * @return True if cells after the block can hold all following blocks
+     */
+    private boolean fitsRight(char[] line, int blockEnd, int blockIndex, int length) {
+        if (blockEnd == length) {
+            return suffix[length * stride + blockIndex];
+        }
+        // Space after block
+        return canBeWhite(line, blockEnd) && suffix[(blockEnd + 1) * stride + blockIndex];
+    }
+
+    private boolean canBeBlack(int from, int to) {
+        return whiteCount[to] == whiteCount[from];
+    }
+
+    private static boolean canBeWhite(char[] line, int index) {
+        return line[index] != NonogramSolver.FIELD_BLACK;
+    }
+}
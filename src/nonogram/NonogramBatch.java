@@ -0,0 +1,222 @@
+package nonogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many nonograms in one JVM.
+ * <p>
+ * Takes directories, whose {@code .in} files are solved, or files containing
+ * one or more nonograms. Puzzles are solved concurrently on a fixed thread
+ * pool, timings per puzzle and the total throughput are printed.
+ */
+public final class NonogramBatch {
+
+    private NonogramBatch() {
+    }
+
+    /**
+     * Starts solving all nonograms given.
+     * <p>
+     * Usage: {@code NonogramBatch [--threads <n>] [--rounds <n>] [--mode <mode>] [--engine backtrack|sat]
+     * <directory or file>...}.
+     * With several rounds the same puzzles are solved again, so later rounds
+     * show the throughput of a warm JVM.
+     *
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Read arguments
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rounds = 1;
+        SolutionMode mode = SolutionMode.all();
+        NonogramSolver.Engine engine = NonogramSolver.Engine.BACKTRACK;
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--rounds")) {
+                rounds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--mode")) {
+                mode = SolutionMode.parse(args[++i]);
+            } else if (args[i].equals("--engine")) {
+                engine = NonogramSolver.Engine.valueOf(args[++i].toUpperCase());
+            } else {
+                paths.add(Paths.get(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add(Paths.get("resources"));
+        }
+
+        // Load puzzles
+        Map<String, NonogramConstraints> puzzles = new LinkedHashMap<>();
+        for (Path path : paths) {
+            for (Map.Entry<String, NonogramConstraints> puzzle : load(path).entrySet()) {
+                if (puzzles.putIfAbsent(puzzle.getKey(), puzzle.getValue()) != null) {
+                    throw new IllegalArgumentException("Puzzle " + puzzle.getKey() + " given twice");
+                }
+            }
+        }
+
+        List<Result> results = null;
+        for (int round = 1; round <= rounds; round++) {
+            long startTime = System.nanoTime();
+            results = solveAll(puzzles, mode, engine, threads);
+            long elapsedTime = System.nanoTime() - startTime;
+
+            System.out.printf("Round %d: %d puzzle(s) in %.1f ms using %d thread(s), %.1f puzzles/s%n",
+                    round, results.size(), elapsedTime / 1e6, threads, results.size() / (elapsedTime / 1e9));
+        }
+
+        // Display timings of last round
+        for (Result result : results) {
+            System.out.println(result);
+        }
+        System.out.println("Line cache: " + LineDomainCache.shared());
+    }
+
+    /**
+     * Loads all nonograms of a directory or file.
+     * <p>
+     * Puzzles are named after the path of their file as given, so files of the
+     * same name in different directories are told apart, with the position
+     * appended if a file contains more than one nonogram.
+     *
+     * @param path Directory containing {@code .in} files, or a single file
+     * @return Puzzles by name, in order of file names and positions
+     * @throws IOException If a file can not be read
+     */
+    public static Map<String, NonogramConstraints> load(Path path) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> list = Files.list(path)) {
+                files = list.filter(file -> file.getFileName().toString().endsWith(".in"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        } else {
+            files = List.of(path);
+        }
+
+        Map<String, NonogramConstraints> puzzles = new LinkedHashMap<>();
+        for (Path file : files) {
+            List<NonogramConstraints> constraints = NonogramConstraints.readAll(file);
+            String name = file.toString();
+            for (int i = 0; i < constraints.size(); i++) {
+                puzzles.put(constraints.size() == 1 ? name : name + "#" + (i + 1), constraints.get(i));
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Solves nonograms concurrently.
+     *
+     * @param puzzles Puzzles by name
+     * @param mode    Defines how many solutions are searched per puzzle
+     * @param engine  Engine solving every puzzle
+     * @param threads Number of threads
+     * @return Results in order of the puzzles
+     * @throws InterruptedException If interrupted while waiting for results
+     */
+    public static List<Result> solveAll(Map<String, NonogramConstraints> puzzles, SolutionMode mode,
+                                        NonogramSolver.Engine engine, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Map.Entry<String, NonogramConstraints> puzzle : puzzles.entrySet()) {
+                futures.add(executor.submit(() -> solve(puzzle.getKey(), puzzle.getValue(), mode, engine)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Solves a single nonogram and measures its time.
+     *
+     * @param name        Name of the puzzle
+     * @param constraints Constraints of the puzzle
+     * @param mode        Defines how many solutions are searched
+     * @param engine      Engine solving the puzzle
+     * @return Result of the puzzle
+     */
+    private static Result solve(String name, NonogramConstraints constraints, SolutionMode mode,
+                                NonogramSolver.Engine engine) {
+        long startTime = System.nanoTime();
+        NonogramSolver solver = new NonogramSolver(constraints, mode);
+        solver.setEngine(engine);
+        long numberOfSolutions = solver.solve();
+        long elapsedTime = System.nanoTime() - startTime;
+
+        return new Result(name, constraints, numberOfSolutions, solver.getNumberOfNodes(), elapsedTime);
+    }
+
+    /**
+     * Result of a solved nonogram.
+     */
+    public static final class Result {
+        private final String name;
+        private final NonogramConstraints constraints;
+        private final long numberOfSolutions;
+        private final long numberOfNodes;
+        private final long nanos;
+
+        public Result(String name, NonogramConstraints constraints, long numberOfSolutions, long numberOfNodes,
+                      long nanos) {
+            this.name = name;
+            this.constraints = constraints;
+            this.numberOfSolutions = numberOfSolutions;
+            this.numberOfNodes = numberOfNodes;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNumberOfSolutions() {
+            return numberOfSolutions;
+        }
+
+        public long getNumberOfNodes() {
+            return numberOfNodes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Converts result to a report line.
+         *
+         * @return Name, size, solutions, nodes and time
+         */
+        public String toString() {
+            return String.format("%-24s %4dx%-4d %6d solution(s) %10d nodes %10.2f ms",
+                    name, constraints.getM(), constraints.getN(), numberOfSolutions, numberOfNodes, nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package nonogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Loads input data and handles row- and column constraints.
+ * <p>
+ * Input consists of a line with the number of columns m and rows n, followed
+ * by one line of block lengths per row and per column. Several puzzles may
+ * follow each other, empty lines and lines starting with {@code %} between
+ * them are skipped.
+ */
+public final class NonogramConstraints {
+    // Lines with more permutations
+    // get no candidate domain
+    public static final int MAX_DOMAIN_SIZE = 1 << 12;
+
+    // Dimensions
+    private final int m;
+    private final int n;
+
+    // Constraints
+    private final int[][] rowBlocks;
+    private final int[][] columnBlocks;
+
+    // Cells needed by the blocks from
+    // an index on per column
+    private final int[][] columnMinLengths;
+
+    // Number of longs per row mask
+    private final int words;
+
+    // Candidate domains, rows then columns,
+    // built on first use
+    private LineDomain[] lineDomains;
+
+    /**
+     * Creates constraints for a nonogram from clues as read.
+     *
+     * @param m           Number of columns
+     * @param n           Number of rows
+     * @param rowClues    Block lengths per row, a single 0 for an empty row
+     * @param columnClues Block lengths per column, a single 0 for an empty column
+     */
+    public NonogramConstraints(int m, int n, int[][] rowClues, int[][] columnClues) {
+        this.m = m;
+        this.n = n;
+        this.rowBlocks = toBlocks(rowClues);
+        this.columnBlocks = toBlocks(columnClues);
+        this.columnMinLengths = new int[m][];
+        for (int col = 0; col < m; col++) {
+            columnMinLengths[col] = toMinLengths(columnBlocks[col]);
+        }
+
+        this.words = RowMask.words(getM());
+    }
+
+    /**
+     * Reads the first nonogram of an input file.
+     *
+     * @param path Input file
+     * @return Constraints read
+     * @throws IOException If file can not be read or contains no nonogram
+     */
+    public static NonogramConstraints read(Path path) throws IOException {
+        NonogramConstraints constraints = NonogramParser.open(path).next();
+        if (constraints == null) {
+            throw new IOException("No nonogram found in " + path);
+        }
+        return constraints;
+    }
+
+    /**
+     * Reads all nonograms of an input file.
+     *
+     * @param path Input file
+     * @return Constraints read, in order of the file
+     * @throws IOException If file can not be read
+     */
+    public static List<NonogramConstraints> readAll(Path path) throws IOException {
+        return NonogramParser.parseAll(path);
+    }
+
+    /**
+     * Gets number of columns.
+     *
+     * @return Number of columns
+     */
+    public int getM() {
+        return m;
+    }
+
+    /**
+     * Gets number of rows.
+     *
+     * @return Number of rows
+     */
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * Gets number of longs used to store one row.
+     *
+     * @return Number of words per row
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * Gets block lengths of a row.
+     *
+     * @param rowIndex Row index
+     * @return Block lengths for row
+     */
+    public int[] getRowBlocks(int rowIndex) {
+        return rowBlocks[rowIndex];
+    }
+
+    /**
+     * Gets block lengths of a column.
+     *
+     * @param colIndex Column index
+     * @return Block lengths for column
+     */
+    public int[] getColumnBlocks(int colIndex) {
+        return columnBlocks[colIndex];
+    }
+
+    /**
+     * Gets the cells needed by the remaining blocks of a column.
+     *
+     * @param colIndex Column index
+     * @return Minimal length of blocks j to the last one at index j, 0 after the last block
+     */
+    public int[] getColumnMinLengths(int colIndex) {
+        return columnMinLengths[colIndex];
+    }
+
+    /**
+     * Creates a generator for the permutations of a row.
+     *
+     * @param rowIndex Row index
+     * @return Generator for possible permutations according to row constraints
+     */
+    public PermutationGenerator createRowPermutations(int rowIndex) {
+        return new PermutationGenerator(rowBlocks[rowIndex], getM());
+    }
+
+    /**
+     * Creates a generator for the permutations of a column.
+     *
+     * @param colIndex Column index
+     * @return Generator for possible permutations according to column constraints
+     */
+    public PermutationGenerator createColumnPermutations(int colIndex) {
+        return new PermutationGenerator(columnBlocks[colIndex], getN());
+    }
+
+    /**
+     * Gets candidate domains of all lines, taken from the {@link LineDomainCache#shared() shared cache}.
+     * Lines with more than {@link #MAX_DOMAIN_SIZE} permutations have none.
+     *
+     * @return Domains of rows followed by domains of columns, entries may be null
+     */
+    public synchronized LineDomain[] getLineDomains() {
+        if (lineDomains == null) {
+            lineDomains = new LineDomain[n + m];
+            for (int row = 0; row < n; row++) {
+                lineDomains[row] = LineDomainCache.shared().get(rowBlocks[row], m, MAX_DOMAIN_SIZE);
+            }
+            for (int col = 0; col < m; col++) {
+                lineDomains[n + col] = LineDomainCache.shared().get(columnBlocks[col], n, MAX_DOMAIN_SIZE);
+            }
+        }
+        return lineDomains;
+    }
+
+    /**
+     * Creates constraints with the clue of one row changed.
+     * Candidate domains already built are taken over for all other lines.
+     *
+     * @param rowIndex Row index
+     * @param clue     New block lengths of the row, a single 0 for an empty row
+     * @return Edited constraints
+     */
+    public NonogramConstraints withRowBlocks(int rowIndex, int[] clue) {
+        int[][] rows = rowBlocks.clone();
+        rows[rowIndex] = clue.clone();
+        NonogramConstraints edited = new NonogramConstraints(m, n, rows, columnBlocks);
+        edited.reuseLineDomains(this, rowIndex);
+        return edited;
+    }
+
+    /**
+     * Creates constraints with the clue of one column changed.
+     * Candidate domains already built are taken over for all other lines.
+     *
+     * @param colIndex Column index
+     * @param clue     New block lengths of the column, a single 0 for an empty column
+     * @return Edited constraints
+     */
+    public NonogramConstraints withColumnBlocks(int colIndex, int[] clue) {
+        int[][] columns = columnBlocks.clone();
+        columns[colIndex] = clue.clone();
+        NonogramConstraints edited = new NonogramConstraints(m, n, rowBlocks, columns);
+        edited.reuseLineDomains(this, n + colIndex);
+        return edited;
+    }
+
+    /**
+     * Creates the constraints of the nonogram mirrored at its diagonal,
+     * so rows become columns and columns become rows.
+     *
+     * @return Transposed constraints
+     */
+    public NonogramConstraints transpose() {
+        return new NonogramConstraints(n, m, columnBlocks, rowBlocks);
+    }
+
+    /**
+     * Takes over the candidate domains of constraints differing in one line,
+     * so only the domain of that line is looked up again.
+     *
+     * @param previous    Constraints before the edit
+     * @param changedLine Index of the changed row, or n plus index of the changed column
+     */
+    private void reuseLineDomains(NonogramConstraints previous, int changedLine) {
+        LineDomain[] domains;
+        synchronized (previous) {
+            domains = previous.lineDomains;
+        }
+        if (domains == null) {
+            // Nothing built yet
+            return;
+        }
+        LineDomain[] reused = domains.clone();
+        reused[changedLine] = changedLine < n
+                ? LineDomainCache.shared().get(rowBlocks[changedLine], m, MAX_DOMAIN_SIZE)
+                : LineDomainCache.shared().get(columnBlocks[changedLine - n], n, MAX_DOMAIN_SIZE);
+        synchronized (this) {
+            lineDomains = reused;
+        }
+    }
+
+    /**
+     * Calculates the minimal length of every suffix of blocks.
+     *
+     * @param blocks Block lengths of a line
+     * @return Blocks plus one white cell between them, per first block of the suffix
+     */
+    private static int[] toMinLengths(int[] blocks) {
+        int[] minLengths = new int[blocks.length + 1];
+        for (int j = blocks.length - 1; j >= 0; j--) {
+            minLengths[j] = blocks[j] + (j == blocks.length - 1 ? 0 : minLengths[j + 1] + 1);
+        }
+        return minLengths;
+    }
+
+    /**
+     * Converts clues to arrays of block lengths.
+     * A single 0 stands for an empty line and results in no blocks.
+     *
+     * @param clues Block lengths per entry as read
+     * @return Block lengths per entry
+     */
+    private static int[][] toBlocks(int[][] clues) {
+        int[][] blocks = new int[clues.length][];
+        for (int i = 0; i < clues.length; i++) {
+            int count = 0;
+            for (int block : clues[i]) {
+                if (block > 0) {
+                    count++;
+                }
+            }
+            if (count == clues[i].length) {
+                blocks[i] = clues[i];
+                continue;
+            }
+            blocks[i] = new int[count];
+            count = 0;
+            for (int block : clues[i]) {
+                if (block > 0) {
+                    blocks[i][count++] = block;
+                }
+            }
+        }
+        return blocks;
+    }
+}
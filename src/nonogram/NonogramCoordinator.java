@@ -0,0 +1,738 @@
+package nonogram;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Solves a nonogram with several worker processes on the local machine.
+ * <p>
+ * The coordinator lists the subtrees below the first rows as prefixes of
+ * permutation indices, see {@link NonogramSolver#expand(int[])}, and hands
+ * them out as work units to worker JVMs started from the same class path.
+ * Workers get units on their standard input and report solutions and counts
+ * on their standard output. Solutions of a unit are spilled to a temporary
+ * file until all earlier units are merged, so the sink receives the same
+ * solutions in the same order as from a single {@link NonogramSolver}, and
+ * the heap of the coordinator does not grow with the number of solutions.
+ * <p>
+ * Units of a crashed worker, or of one sending lines which can not be
+ * read, are handed out again, and the worker is killed and restarted.
+ * Once no unit is left to hand out, a unit running longer than a threshold
+ * is started a second time on an idle worker, and whichever attempt
+ * finishes first is taken.
+ */
+public final class NonogramCoordinator {
+    /** Default time after which a running unit is started a second time */
+    public static final long DEFAULT_REASSIGN_MILLIS = 10_000;
+
+    // Units listed per worker at least,
+    // so workers finishing early find more work
+    private static final int UNITS_PER_WORKER = 8;
+
+    private final Path input;
+    private final NonogramConstraints constraints;
+    private final SolutionMode mode;
+    private final int workers;
+
+    // Settings
+    private boolean transposed;
+    private int depth = -1;
+    private long reassignNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_REASSIGN_MILLIS);
+    private List<String> jvmOptions = List.of();
+    private SolutionSink sink = solution -> {
+    };
+
+    // Results and counters
+    private long numberOfSolutions;
+    private long numberOfNodes;
+    private int numberOfUnits;
+    private int reassigned;
+    private int restarts;
+
+    // Messages of the reader threads
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+    /**
+     * Creates a coordinator for a nonogram file, which the workers read as well.
+     *
+     * @param input   Input file
+     * @param mode    Defines how many solutions are searched
+     * @param workers Number of worker processes
+     * @throws IOException If input can not be read
+     */
+    public NonogramCoordinator(Path input, SolutionMode mode, int workers) throws IOException {
+        this.input = input.toAbsolutePath();
+        this.constraints = NonogramConstraints.read(input);
+        this.mode = mode;
+        this.workers = workers;
+    }
+
+    /**
+     * Starts solving a nonogram with worker processes.
+     * <p>
+     * Usage: {@code NonogramCoordinator [--workers <n>] [--mode <mode>] [--format text|binary]
+     * [--orientation rows|columns] [--depth <rows>] [--reassign <ms>] [--jvm <option>]... [input]}.
+     * Reads {@code nonogramm.in} or the file given and writes all solutions to
+     * {@code nonogramm.out}, like {@link NonogramSolver}. Units are prefixes of
+     * as many rows as needed for 8 units per worker unless {@code --depth} is
+     * given. {@code --jvm} passes an option such as {@code -Xmx2g} to every
+     * worker JVM.
+     *
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--worker")) {
+            work(args);
+            return;
+        }
+
+        // Read arguments
+        int workers = Runtime.getRuntime().availableProcessors();
+        SolutionMode mode = SolutionMode.all();
+        SolutionWriter.Format format = SolutionWriter.Format.TEXT;
+        boolean transposed = false;
+        int depth = -1;
+        long reassign = DEFAULT_REASSIGN_MILLIS;
+        List<String> jvmOptions = new ArrayList<>();
+        String input = "nonogramm.in";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--workers")) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--mode")) {
+                mode = SolutionMode.parse(args[++i]);
+            } else if (args[i].equals("--format")) {
+                format = SolutionWriter.Format.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--orientation")) {
+                transposed = args[++i].equals("columns");
+            } else if (args[i].equals("--depth")) {
+                depth = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--reassign")) {
+                reassign = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--jvm")) {
+                jvmOptions.add(args[++i]);
+            } else {
+                input = args[i];
+            }
+        }
+
+        NonogramCoordinator coordinator = new NonogramCoordinator(Paths.get(input), mode, workers);
+        NonogramConstraints constraints = coordinator.constraints;
+        coordinator.setTransposed(transposed);
+        coordinator.setDepth(depth);
+        coordinator.setReassignAfter(reassign, TimeUnit.MILLISECONDS);
+        coordinator.setJvmOptions(jvmOptions);
+
+        // Start measuring execution time
+        long startTime = System.currentTimeMillis();
+        System.out.println("Going down that rabbit hole with " + workers + " worker(s)...");
+        long numberOfSolutions;
+        try (SolutionWriter out = new SolutionWriter(Paths.get("nonogramm.out"), format,
+                constraints.getN(), constraints.getM())) {
+            coordinator.setSolutionSink(out);
+            numberOfSolutions = coordinator.solve();
+        }
+
+        // Check number of solutions found
+        if (numberOfSolutions > 0) {
+            System.out.println("Hooray! " + numberOfSolutions + " solution(s) found"
+                    + (mode.isLimitReached(numberOfSolutions) ? ", stopped at limit" : ""));
+        } else {
+            System.out.println("No solution found :/");
+        }
+
+        // Display execution time
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        System.out.println("Execution time was: " + elapsedTime + " ms");
+        System.out.println("Nodes visited: " + coordinator.getNumberOfNodes());
+        System.out.println("Units: " + coordinator.getNumberOfUnits() + ", " + coordinator.getReassigned()
+                + " started twice, " + coordinator.getRestarts() + " worker restart(s)");
+    }
+
+    /**
+     * Sets whether workers branch over columns instead of rows.
+     *
+     * @param transposed True to branch over columns
+     */
+    public void setTransposed(boolean transposed) {
+        this.transposed = transposed;
+    }
+
+    /**
+     * Sets number of rows fixed by every unit.
+     *
+     * @param depth Number of rows, -1 to take as many as needed for enough units
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Sets time after which a running unit is started a second time on an idle worker.
+     *
+     * @param timeout Time a unit may run alone
+     * @param unit    Unit of timeout
+     */
+    public void setReassignAfter(long timeout, TimeUnit unit) {
+        this.reassignNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Sets options of the worker JVMs, e.g. their heap size.
+     *
+     * @param jvmOptions Options passed to every worker JVM
+     */
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = List.copyOf(jvmOptions);
+    }
+
+    /**
+     * Sets where found solutions go to.
+     *
+     * @param sink Receiver of solutions, called on the thread calling {@link #solve()}
+     */
+    public void setSolutionSink(SolutionSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Gets number of nodes visited by the workers, counting every unit once.
+     *
+     * @return Number of nodes
+     */
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Gets number of units the search was split into.
+     *
+     * @return Number of units
+     */
+    public int getNumberOfUnits() {
+        return numberOfUnits;
+    }
+
+    /**
+     * Gets number of units started a second time because they ran long.
+     *
+     * @return Number of units
+     */
+    public int getReassigned() {
+        return reassigned;
+    }
+
+    /**
+     * Gets number of workers restarted after they died.
+     *
+     * @return Number of restarts
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Splits the search into units and solves them with the workers.
+     *
+     * @return Number of solutions found
+     * @throws IOException If workers can not be started or keep crashing
+     */
+    public long solve() throws IOException, InterruptedException {
+        events.clear();
+        List<Unit> units = createUnits();
+        numberOfUnits = units.size();
+        PriorityQueue<Unit> pending = new PriorityQueue<>(Comparator.comparingInt((Unit unit) -> unit.id));
+        pending.addAll(units);
+
+        Path directory = Files.createTempDirectory("nonogram");
+        List<Worker> pool = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(workers, units.size()); i++) {
+                pool.add(startWorker(directory));
+            }
+
+            int next = 0;
+            while (next < units.size() && !mode.isLimitReached(numberOfSolutions)) {
+                assign(pool, pending, units, next);
+
+                Event event = events.poll(100, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    continue;
+                }
+                Worker worker = event.worker;
+                Unit assigned = worker.unit;
+                worker.unit = null;
+                if (event.unitId < 0) {
+                    // Worker died or sent garbage, reap
+                    // it and hand out its unit again
+                    pool.remove(worker);
+                    worker.kill();
+                    if (assigned != null && --assigned.attempts == 0 && !assigned.done) {
+                        pending.add(assigned);
+                    }
+                    if (++restarts > 3 * workers) {
+                        throw new IOException("Workers died " + restarts + " times, giving up");
+                    }
+                    pool.add(startWorker(directory));
+                    continue;
+                }
+
+                Unit unit = units.get(event.unitId);
+                unit.attempts--;
+                if (unit.done) {
+                    // Other attempt was faster
+                    deleteFile(event.file);
+                    continue;
+                }
+                unit.done = true;
+                unit.solutions = event.solutions;
+                unit.nodes = event.nodes;
+                unit.file = event.file;
+                for (Worker other : pool) {
+                    if (other.unit == unit) {
+                        other.send("C " + unit.id);
+                    }
+                }
+
+                // Merge finished units in order
+                while (next < units.size() && units.get(next).done && !mode.isLimitReached(numberOfSolutions)) {
+                    merge(units.get(next));
+                    next++;
+                }
+            }
+            return numberOfSolutions;
+        } finally {
+            for (Worker worker : pool) {
+                worker.stop();
+            }
+            for (Worker worker : pool) {
+                worker.await();
+            }
+            for (Unit unit : units) {
+                deleteFile(unit.file);
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(NonogramCoordinator::deleteFile);
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Lists the prefixes to solve, one row deeper at a time
+     * until there are enough units per worker.
+     *
+     * @return Units in the order of the search
+     */
+    private List<Unit> createUnits() {
+        NonogramSolver solver = new NonogramSolver(constraints, mode, transposed);
+        int rows = solver.getConstraints().getN();
+        int target = depth >= 0 ? Math.min(depth, rows) : rows;
+        List<int[]> prefixes = List.of(new int[0]);
+        for (int row = 0; row < target && !prefixes.isEmpty()
+                && (depth >= 0 || prefixes.size() < UNITS_PER_WORKER * workers); row++) {
+            List<int[]> longer = new ArrayList<>();
+            for (int[] prefix : prefixes) {
+                longer.addAll(solver.expand(prefix));
+            }
+            prefixes = longer;
+        }
+
+        List<Unit> units = new ArrayList<>(prefixes.size());
+        for (int[] prefix : prefixes) {
+            units.add(new Unit(units.size(), prefix));
+        }
+        return units;
+    }
+
+    /**
+     * Gives idle workers the next pending unit, or a second attempt
+     * of the earliest unit running too long if none is pending.
+     *
+     * @param pool    Running workers
+     * @param pending Units not started yet
+     * @param units   All units
+     * @param next    Index of the next unit to merge
+     */
+    private void assign(List<Worker> pool, PriorityQueue<Unit> pending, List<Unit> units, int next) {
+        long now = System.nanoTime();
+        for (Worker worker : pool) {
+            if (worker.unit != null) {
+                continue;
+            }
+
+            Unit unit = pending.poll();
+            if (unit == null) {
+                for (int i = next; i < units.size(); i++) {
+                    Unit running = units.get(i);
+                    if (!running.done && running.attempts == 1 && !running.reassigned
+                            && now - running.started > reassignNanos) {
+                        unit = running;
+                        unit.reassigned = true;
+                        reassigned++;
+                        break;
+                    }
+                }
+            }
+            if (unit == null) {
+                return;
+            }
+
+            if (unit.attempts++ == 0) {
+                unit.started = now;
+            }
+            worker.unit = unit;
+            StringBuilder line = new StringBuilder("U ").append(unit.id);
+            for (int index : unit.prefix) {
+                line.append(' ').append(index);
+            }
+            worker.send(line.toString());
+        }
+    }
+
+    /**
+     * Passes solutions of a finished unit to the sink, up to the limit.
+     *
+     * @param unit Finished unit
+     * @throws IOException If the spilled solutions can not be read
+     */
+    private void merge(Unit unit) throws IOException {
+        long found = Math.min(unit.solutions, mode.getLimit() - numberOfSolutions);
+        if (unit.file != null) {
+            try (BufferedReader reader = Files.newBufferedReader(unit.file, StandardCharsets.US_ASCII)) {
+                for (long i = 0; i < found; i++) {
+                    sink.accept(toSolution(reader.readLine()));
+                }
+            }
+            deleteFile(unit.file);
+            unit.file = null;
+        }
+        numberOfSolutions += found;
+        numberOfNodes += unit.nodes;
+    }
+
+    /**
+     * Converts a solution line back into a solution.
+     *
+     * @param line Cells row by row
+     * @return Solution
+     */
+    private NonogramSolver.NonogrammSolution toSolution(String line) {
+        int n = constraints.getN();
+        int m = constraints.getM();
+        NonogramSolver.NonogrammSolution solution = new NonogramSolver.NonogrammSolution(n, m);
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < m; col++) {
+                solution.set(row, col, line.charAt(row * m + col));
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Starts a worker process and a thread reading its messages.
+     *
+     * @param directory Directory for spilled solutions
+     * @return Started worker
+     * @throws IOException If the process can not be started
+     */
+    private Worker startWorker(Path directory) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(NonogramCoordinator.class.getName());
+        command.add("--worker");
+        command.add(!mode.isKeepSolutions() ? "count"
+                : mode.getLimit() == Long.MAX_VALUE ? "all" : Long.toString(mode.getLimit()));
+        command.add(transposed ? "columns" : "rows");
+        command.add(input.toString());
+
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        Worker worker = new Worker(process);
+        worker.reader = new Thread(() -> read(worker, directory), "nonogram-worker-" + process.pid());
+        worker.reader.setDaemon(true);
+        worker.reader.start();
+        return worker;
+    }
+
+    /**
+     * Reads messages of a worker until it exits. Solutions are
+     * written to one file per unit and attempt.
+     *
+     * @param worker    Worker to read from
+     * @param directory Directory for spilled solutions
+     */
+    private void read(Worker worker, Path directory) {
+        Path file = null;
+        Writer spill = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(worker.process.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                int unitId = Integer.parseInt(parts[1]);
+                if (parts[0].equals("S")) {
+                    if (spill == null) {
+                        file = directory.resolve(unitId + "-" + worker.process.pid() + ".txt");
+                        spill = Files.newBufferedWriter(file, StandardCharsets.US_ASCII);
+                    }
+                    spill.write(parts[2]);
+                    spill.write('\n');
+                } else if (parts[0].equals("D")) {
+                    if (spill != null) {
+                        spill.close();
+                    }
+                    events.add(new Event(worker, unitId, Long.parseLong(parts[2]), Long.parseLong(parts[3]), file));
+                    file = null;
+                    spill = null;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Treated like an exit
+        }
+
+        // Drop solutions of the unfinished unit
+        try {
+            if (spill != null) {
+                spill.close();
+            }
+        } catch (IOException e) {
+            // Deleted anyway
+        }
+        deleteFile(file);
+        events.add(new Event(worker, -1, 0, 0, null));
+    }
+
+    /**
+     * Deletes a file if there is one.
+     *
+     * @param file File, may be null
+     */
+    private static void deleteFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Solves units read from standard input until it is closed.
+     * <p>
+     * Messages are lines: {@code U <unit> <index>...} starts a unit,
+     * {@code C <unit>} cancels it. Answers are {@code S <unit> <cells>}
+     * per solution and {@code D <unit> <solutions> <nodes>} per unit.
+     *
+     * @param args {@code --worker}, mode, orientation and input file
+     */
+    private static void work(String[] args) throws IOException, InterruptedException {
+        NonogramConstraints constraints = NonogramConstraints.read(Paths.get(args[3]));
+        SolutionMode mode = SolutionMode.parse(args[1]);
+        boolean transposed = args[2].equals("columns");
+
+        // Read messages on a separate thread,
+        // so a running unit can be cancelled
+        BlockingQueue<int[]> queue = new LinkedBlockingQueue<>();
+        int[] end = new int[0];
+        Object lock = new Object();
+        Set<Integer> cancelled = new HashSet<>();
+        NonogramSolver[] current = new NonogramSolver[1];
+        int[] currentUnit = {-1};
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    int unitId = Integer.parseInt(parts[1]);
+                    if (parts[0].equals("U")) {
+                        int[] unit = new int[parts.length - 1];
+                        for (int i = 0; i < unit.length; i++) {
+                            unit[i] = Integer.parseInt(parts[i + 1]);
+                        }
+                        queue.add(unit);
+                    } else if (parts[0].equals("C")) {
+                        synchronized (lock) {
+                            if (currentUnit[0] == unitId) {
+                                current[0].cancel();
+                            } else {
+                                cancelled.add(unitId);
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Same as closed input
+            }
+            queue.add(end);
+        }, "nonogram-worker-input");
+        reader.setDaemon(true);
+        reader.start();
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        int[] unit;
+        while ((unit = queue.take()) != end) {
+            int unitId = unit[0];
+            NonogramSolver solver = new NonogramSolver(constraints, mode, transposed);
+            solver.setSolutionSink(solution -> {
+                try {
+                    out.write("S " + unitId + " " + solution + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            synchronized (lock) {
+                if (cancelled.remove(unitId)) {
+                    solver.cancel();
+                }
+                current[0] = solver;
+                currentUnit[0] = unitId;
+            }
+
+            long found = solver.solve(Arrays.copyOfRange(unit, 1, unit.length));
+            synchronized (lock) {
+                current[0] = null;
+                currentUnit[0] = -1;
+            }
+            out.write("D " + unitId + " " + found + " " + solver.getNumberOfNodes() + "\n");
+            out.flush();
+        }
+    }
+
+    /**
+     * Subtree below a prefix and how it was solved.
+     */
+    private static final class Unit {
+        private final int id;
+        private final int[] prefix;
+
+        // Attempts running and first start
+        private int attempts;
+        private long started;
+        private boolean reassigned;
+
+        // Result of the first finished attempt
+        private boolean done;
+        private long solutions;
+        private long nodes;
+        private Path file;
+
+        private Unit(int id, int[] prefix) {
+            this.id = id;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Worker process and the unit it is solving.
+     */
+    private static final class Worker {
+        private final Process process;
+        private final Writer in;
+        private Thread reader;
+        private Unit unit;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * Sends a message. A worker which can not be reached
+         * is detected by its reader thread.
+         *
+         * @param message Message without line end
+         */
+        private void send(String message) {
+            try {
+                in.write(message);
+                in.write('\n');
+                in.flush();
+            } catch (IOException e) {
+                // Reported as exit
+            }
+        }
+
+        /**
+         * Cancels the running unit and closes the input, so the worker exits.
+         */
+        private void stop() {
+            if (unit != null) {
+                send("C " + unit.id);
+            }
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Exited already
+            }
+        }
+
+        /**
+         * Waits for the process to exit, and kills it if it does not,
+         * then waits for the reader to take the last messages.
+         */
+        private void await() throws InterruptedException {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            reader.join();
+        }
+
+        /**
+         * Kills the process at once, e.g. after its output could not be
+         * read, and waits for it and its reader to end.
+         */
+        private void kill() throws InterruptedException {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Exited already
+            }
+            process.destroyForcibly().waitFor();
+            reader.join();
+        }
+    }
+
+    /**
+     * Message of a reader thread, a finished unit or an exited worker.
+     */
+    private static final class Event {
+        private final Worker worker;
+        private final int unitId;
+        private final long solutions;
+        private final long nodes;
+        private final Path file;
+
+        private Event(Worker worker, int unitId, long solutions, long nodes, Path file) {
+            this.worker = worker;
+            this.unitId = unitId;
+            this.solutions = solutions;
+            this.nodes = nodes;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package nonogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a nonogram being edited and solves it again after every edit.
+ * <p>
+ * An editor changes one clue at a time or pins single cells, and solves
+ * after each change, e.g. to show whether the puzzle is still unique. Clue
+ * edits go through {@link NonogramConstraints#withRowBlocks(int, int[])}, so
+ * the candidate domains of all other lines are kept. Pinned cells are passed
+ * to the solver as given, and the first solution of the last solve is
+ * tried first by the next one, see {@link NonogramSolver#setHint}.
+ * <p>
+ * Pinning a cell only removes solutions. If only cells were pinned since
+ * the last search, the solutions agreeing with the pins are taken from it,
+ * and no search is needed if that search was complete or enough of its
+ * solutions are left to reach the limit of the mode. Clue edits and
+ * released or changed pins always need a new search.
+ * <p>
+ * Editors are not thread safe, one editor serves one puzzle being edited.
+ */
+public final class NonogramEditor {
+    private final SolutionMode mode;
+    private NonogramSolver.Engine engine = NonogramSolver.Engine.BACKTRACK;
+
+    // Puzzle as edited
+    private NonogramConstraints constraints;
+    private final NonogramSolver.NonogrammSolution given;
+    private int pinned;
+
+    // Result of the last solve,
+    // first solution kept as hint
+    private List<NonogramSolver.NonogrammSolution> solutions = List.of();
+    private NonogramSolver.NonogrammSolution hint;
+    private long numberOfNodes;
+
+    // True if the solutions are still solutions of
+    // the puzzle as edited, and if they are all of them
+    private boolean reusable;
+    private boolean complete;
+
+    /**
+     * Creates an editor without pinned cells.
+     *
+     * @param constraints Constraints to start from
+     * @param mode        Defines how many solutions every solve searches, e.g. {@link SolutionMode#unique()}
+     */
+    public NonogramEditor(NonogramConstraints constraints, SolutionMode mode) {
+        this.constraints = constraints;
+        this.mode = mode;
+        this.given = new NonogramSolver.NonogrammSolution(constraints.getN(), constraints.getM());
+    }
+
+    /**
+     * Sets the engine of the following solves. The SAT engine
+     * takes no hint, filtering solutions after pins works with both.
+     *
+     * @param engine Engine, {@link NonogramSolver.Engine#BACKTRACK} by default
+     */
+    public void setEngine(NonogramSolver.Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Changes the clue of a row.
+     *
+     * @param rowIndex Row index
+     * @param clue     Block lengths, a single 0 or none for an empty row
+     */
+    public void setRowClue(int rowIndex, int... clue) {
+        constraints = constraints.withRowBlocks(rowIndex, clue);
+        reusable = false;
+    }
+
+    /**
+     * Changes the clue of a column.
+     *
+     * @param colIndex Column index
+     * @param clue     Block lengths, a single 0 or none for an empty column
+     */
+    public void setColumnClue(int colIndex, int... clue) {
+        constraints = constraints.withColumnBlocks(colIndex, clue);
+        reusable = false;
+    }
+
+    /**
+     * Pins a cell to a value or releases it again.
+     *
+     * @param rowIndex Row index
+     * @param colIndex Column index
+     * @param value    {@link NonogramSolver#FIELD_BLACK}, {@link NonogramSolver#FIELD_WHITE}
+     *                 or {@link NonogramSolver#FIELD_UNKNOWN} to release the cell
+     */
+    public void pin(int rowIndex, int colIndex, char value) {
+        if (value != NonogramSolver.FIELD_BLACK && value != NonogramSolver.FIELD_WHITE
+                && value != NonogramSolver.FIELD_UNKNOWN) {
+            throw new IllegalArgumentException("Unknown cell value '" + value + "'");
+        }
+        char old = given.get(rowIndex, colIndex);
+        boolean wasPinned = old != NonogramSolver.FIELD_UNKNOWN;
+        boolean isPinned = value != NonogramSolver.FIELD_UNKNOWN;
+        pinned += (isPinned ? 1 : 0) - (wasPinned ? 1 : 0);
+        if (wasPinned && old != value) {
+            // Solutions may come back
+            reusable = false;
+        }
+        given.set(rowIndex, colIndex, value);
+    }
+
+    /**
+     * Solves the puzzle as edited so far.
+     * <p>
+     * If solutions are found, the first one becomes the hint of the next
+     * solve. A solve stopped by the timeout keeps the previous hint. If only
+     * cells were pinned since the last search, its solutions are filtered
+     * and the search is skipped if they answer the solve.
+     *
+     * @param timeout Maximal time of the search
+     * @param unit    Unit of timeout
+     * @return How the search ended and what was found
+     */
+    public SolveOutcome solve(long timeout, TimeUnit unit) {
+        if (reusable) {
+            long startTime = System.nanoTime();
+            List<NonogramSolver.NonogrammSolution> kept = filterSolutions();
+            if (complete || mode.isLimitReached(kept.size())) {
+                // Pins removed solutions
+                // but added none
+                solutions = kept;
+                numberOfNodes = 0;
+                if (!kept.isEmpty()) {
+                    hint = kept.get(0);
+                }
+                return new SolveOutcome(kept.isEmpty() ? SolveOutcome.Status.UNSAT : SolveOutcome.Status.SOLVED,
+                        kept.size(), 0, 1, System.nanoTime() - startTime);
+            }
+        }
+
+        NonogramSolver solver = new NonogramSolver(constraints, mode);
+        List<NonogramSolver.NonogrammSolution> found = new ArrayList<>();
+        solver.setSolutionSink(solution -> found.add(solution.copy()));
+        solver.setEngine(engine);
+        if (engine == NonogramSolver.Engine.BACKTRACK) {
+            solver.setHint(hint);
+        }
+        SolveOutcome outcome = pinned == 0 ? solver.solve(timeout, unit) : solver.solve(given, timeout, unit);
+
+        solutions = found;
+        numberOfNodes = outcome.getNumberOfNodes();
+        if (!found.isEmpty()) {
+            hint = found.get(0);
+        }
+        reusable = mode.isKeepSolutions() && (outcome.getStatus() == SolveOutcome.Status.UNSAT
+                || outcome.getStatus() == SolveOutcome.Status.SOLVED);
+        complete = reusable && !mode.isLimitReached(found.size());
+        return outcome;
+    }
+
+    /**
+     * Takes the solutions of the last solve agreeing with all pinned cells.
+     *
+     * @return Solutions left
+     */
+    private List<NonogramSolver.NonogrammSolution> filterSolutions() {
+        List<NonogramSolver.NonogrammSolution> kept = new ArrayList<>();
+        for (NonogramSolver.NonogrammSolution solution : solutions) {
+            if (agrees(solution)) {
+                kept.add(solution);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Checks whether a solution has the values of all pinned cells.
+     *
+     * @param solution Solution to check
+     * @return True if no pinned cell differs
+     */
+    private boolean agrees(NonogramSolver.NonogrammSolution solution) {
+        for (int row = 0; row < given.getN(); row++) {
+            for (int col = 0; col < given.getM(); col++) {
+                char value = given.get(row, col);
+                if (value != NonogramSolver.FIELD_UNKNOWN && solution.get(row, col) != value) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets constraints as edited so far.
+     *
+     * @return Current constraints
+     */
+    public NonogramConstraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Gets number of pinned cells.
+     *
+     * @return Number of cells given to the solver
+     */
+    public int getPinned() {
+        return pinned;
+    }
+
+    /**
+     * Gets solutions of the last solve.
+     *
+     * @return Solutions found, up to the limit of the mode
+     */
+    public List<NonogramSolver.NonogrammSolution> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets number of nodes of the last solve.
+     *
+     * @return Number of calls of the backtracking step
+     */
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+}
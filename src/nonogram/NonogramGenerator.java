@@ -0,0 +1,295 @@
+package nonogram;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates nonograms from random or image-derived grids.
+ * <p>
+ * The clues of a grid always have that grid as solution, but may have
+ * others as well. Random grids get more ambiguous the larger and the
+ * sparser they are, so puzzles can be filtered for unique solutions.
+ * Puzzles are written in the input format read by {@link NonogramConstraints}.
+ */
+public final class NonogramGenerator {
+    private final Random random;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed Seed of the random grids, same seed gives same puzzles
+     */
+    public NonogramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates puzzles and writes them to a file or to standard output.
+     * <p>
+     * Usage: {@code NonogramGenerator [--size <m>x<n>] [--density <d>] [--count <k>] [--seed <s>]
+     * [--unique] [--timeout <ms>] [--attempts <a>] [--image <file>] [--threshold <t>] [output]}.
+     * Random grids have the given share of black cells. With {@code --image}
+     * a single puzzle is taken from a picture scaled to the size, cells
+     * darker than the threshold become black. {@code --unique} only keeps
+     * puzzles proven to have one solution within the timeout per attempt,
+     * and gives up after {@code --attempts} grids in a row without one.
+     *
+     */
+    public static void main(String[] args) throws IOException {
+        // Read arguments
+        int m = 30;
+        int n = 30;
+        double density = 0.6;
+        int count = 1;
+        long seed = 1;
+        boolean unique = false;
+        long timeout = 10000;
+        int attempts = 1000;
+        String image = null;
+        double threshold = 0.5;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--size")) {
+                String[] size = args[++i].split("x");
+                m = Integer.parseInt(size[0]);
+                n = Integer.parseInt(size[size.length - 1]);
+            } else if (args[i].equals("--density")) {
+                density = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--count")) {
+                count = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--unique")) {
+                unique = true;
+            } else if (args[i].equals("--timeout")) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--attempts")) {
+                attempts = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--image")) {
+                image = args[++i];
+            } else if (args[i].equals("--threshold")) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            } else {
+                output = args[i];
+            }
+        }
+
+        NonogramGenerator generator = new NonogramGenerator(seed);
+        Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+        int generated = 0;
+        int rejected = 0;
+        try {
+            if (image != null) {
+                BufferedImage picture = ImageIO.read(Paths.get(image).toFile());
+                if (picture == null) {
+                    throw new IOException("Unsupported image format: " + image);
+                }
+                NonogramConstraints constraints = toConstraints(imageGrid(picture, m, n, threshold));
+                if (!unique || isUnique(constraints, timeout, TimeUnit.MILLISECONDS)) {
+                    write(constraints, out);
+                    generated++;
+                } else {
+                    rejected++;
+                }
+            } else {
+                int failed = 0;
+                while (generated < count) {
+                    NonogramConstraints constraints = toConstraints(generator.randomGrid(m, n, density));
+                    if (unique && !isUnique(constraints, timeout, TimeUnit.MILLISECONDS)) {
+                        // Some sizes and densities
+                        // hardly ever are unique
+                        rejected++;
+                        if (++failed >= attempts) {
+                            throw new IllegalStateException("No unique puzzle of " + m + "x" + n + " found in "
+                                    + attempts + " attempts after " + generated + " puzzle(s), try another density"
+                                    + " or a longer timeout");
+                        }
+                        continue;
+                    }
+                    write(constraints, out);
+                    generated++;
+                    failed = 0;
+                }
+            }
+        } finally {
+            out.flush();
+            if (output != null) {
+                out.close();
+            }
+        }
+        System.err.println("Generated " + generated + " puzzle(s) of " + m + "x" + n
+                + (unique ? ", rejected " + rejected + " without unique solution" : ""));
+    }
+
+    /**
+     * Fills a grid at random.
+     *
+     * @param m       Number of columns
+     * @param n       Number of rows
+     * @param density Probability of a cell to be black
+     * @return Grid, true for black cells
+     */
+    public boolean[][] randomGrid(int m, int n, double density) {
+        boolean[][] grid = new boolean[n][m];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < m; col++) {
+                grid[row][col] = random.nextDouble() < density;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Derives a grid from a picture.
+     * <p>
+     * The picture is divided into m x n areas, an area becomes a black cell
+     * if its mean brightness is below the threshold.
+     *
+     * @param image     Picture
+     * @param m         Number of columns
+     * @param n         Number of rows
+     * @param threshold Brightness between 0 and 1 below which cells are black
+     * @return Grid, true for black cells
+     */
+    public static boolean[][] imageGrid(BufferedImage image, int m, int n, double threshold) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean[][] grid = new boolean[n][m];
+        for (int row = 0; row < n; row++) {
+            int top = row * height / n;
+            int bottom = Math.max(top + 1, (row + 1) * height / n);
+            for (int col = 0; col < m; col++) {
+                int left = col * width / m;
+                int right = Math.max(left + 1, (col + 1) * width / m);
+
+                // Mean brightness of area
+                double sum = 0;
+                for (int y = top; y < bottom; y++) {
+                    for (int x = left; x < right; x++) {
+                        int rgb = image.getRGB(x, y);
+                        sum += 0.299 * (rgb >> 16 & 0xff) + 0.587 * (rgb >> 8 & 0xff) + 0.114 * (rgb & 0xff);
+                    }
+                }
+                grid[row][col] = sum / ((bottom - top) * (right - left) * 255.0) < threshold;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Calculates the clues of a grid.
+     *
+     * @param grid Grid, true for black cells
+     * @return Constraints which the grid fulfils
+     */
+    public static NonogramConstraints toConstraints(boolean[][] grid) {
+        int n = grid.length;
+        int m = grid[0].length;
+        boolean[] line = new boolean[Math.max(n, m)];
+
+        int[][] rowClues = new int[n][];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < m; col++) {
+                line[col] = grid[row][col];
+            }
+            rowClues[row] = toBlocks(line, m);
+        }
+        int[][] columnClues = new int[m][];
+        for (int col = 0; col < m; col++) {
+            for (int row = 0; row < n; row++) {
+                line[row] = grid[row][col];
+            }
+            columnClues[col] = toBlocks(line, n);
+        }
+        return new NonogramConstraints(m, n, rowClues, columnClues);
+    }
+
+    /**
+     * Checks whether a nonogram has exactly one solution.
+     *
+     * @param constraints Constraints of the nonogram
+     * @param timeout     Maximal time of the check
+     * @param unit        Unit of timeout
+     * @return True if the search completed with a single solution
+     */
+    public static boolean isUnique(NonogramConstraints constraints, long timeout, TimeUnit unit) {
+        NonogramSolver solver = new NonogramSolver(constraints, SolutionMode.unique());
+        SolveOutcome outcome = solver.solve(timeout, unit);
+        return outcome.getStatus() == SolveOutcome.Status.SOLVED && outcome.getNumberOfSolutions() == 1;
+    }
+
+    /**
+     * Writes a nonogram in the input format.
+     *
+     * @param constraints Constraints of the nonogram
+     * @param out         Output
+     * @throws IOException If output can not be written
+     */
+    public static void write(NonogramConstraints constraints, Writer out) throws IOException {
+        out.write(constraints.getM() + " " + constraints.getN() + "\n");
+        for (int row = 0; row < constraints.getN(); row++) {
+            writeBlocks(constraints.getRowBlocks(row), out);
+        }
+        for (int col = 0; col < constraints.getM(); col++) {
+            writeBlocks(constraints.getColumnBlocks(col), out);
+        }
+    }
+
+    /**
+     * Writes the block lengths of a line, a single 0 for an empty line.
+     *
+     * @param blocks Block lengths
+     * @param out    Output
+     * @throws IOException If output can not be written
+     */
+    private static void writeBlocks(int[] blocks, Writer out) throws IOException {
+        if (blocks.length == 0) {
+            out.write("0\n");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int block : blocks) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(block);
+        }
+        out.write(sb.append('\n').toString());
+    }
+
+    /**
+     * Calculates the block lengths of a line.
+     *
+     * @param line   Cells of the line, true for black cells
+     * @param length Length of the line
+     * @return Block lengths, empty for an empty line
+     */
+    private static int[] toBlocks(boolean[] line, int length) {
+        int[] blocks = new int[(length + 1) / 2];
+        int count = 0;
+        int run = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && line[i]) {
+                run++;
+            } else if (run > 0) {
+                blocks[count++] = run;
+                run = 0;
+            }
+        }
+        return Arrays.copyOf(blocks, count);
+    }
+}
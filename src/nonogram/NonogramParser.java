@@ -0,0 +1,183 @@
+package nonogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses nonograms from bytes without creating strings.
+ * <p>
+ * Reads the format described at {@link NonogramConstraints}:
+ * a line with m and n, one line of block lengths per row and per column,
+ * empty lines and lines starting with {@code %} skipped. Numbers are decoded
+ * straight from the buffer into int arrays, files are mapped into memory, so
+ * files of many concatenated puzzles are parsed in one pass.
+ */
+public final class NonogramParser {
+    private final ByteBuffer buffer;
+    private int lineNumber;
+
+    // Numbers of the current line
+    private int[] numbers = new int[16];
+    private int size;
+
+    /**
+     * Creates a parser reading from the position to the limit of a buffer.
+     *
+     * @param buffer Input bytes
+     */
+    public NonogramParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a parser for a file mapped into memory.
+     *
+     * @param path Input file
+     * @return Parser at the start of the file
+     * @throws IOException If file can not be mapped
+     */
+    public static NonogramParser open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Input too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new NonogramParser(buffer);
+        }
+    }
+
+    /**
+     * Parses all nonograms of a file.
+     *
+     * @param path Input file
+     * @return Constraints read, in order of the file
+     * @throws IOException If file can not be read or is malformed
+     */
+    public static List<NonogramConstraints> parseAll(Path path) throws IOException {
+        NonogramParser parser = open(path);
+        List<NonogramConstraints> result = new ArrayList<>();
+        NonogramConstraints constraints;
+        while ((constraints = parser.next()) != null) {
+            result.add(constraints);
+        }
+        return result;
+    }
+
+    /**
+     * Parses the next nonogram.
+     *
+     * @return Constraints read or null if there are no more nonograms
+     * @throws IOException If input is malformed or incomplete, checked before
+     *                     memory for the clues is allocated
+     */
+    public NonogramConstraints next() throws IOException {
+        // Read dimensions
+        if (!nextLine()) {
+            return null;
+        }
+        if (size != 2) {
+            throw new IOException("Expected dimensions in line " + lineNumber
+                    + " but got " + Arrays.toString(Arrays.copyOf(numbers, size)));
+        }
+        int m = numbers[0];
+        int n = numbers[1];
+        if (m == 0 || n == 0) {
+            throw new IOException("Empty nonogram of " + m + "x" + n + " in line " + lineNumber);
+        }
+        if ((long) m + n > (buffer.remaining() + 1L) / 2) {
+            // Every clue line takes a number
+            // and a line break at least
+            throw new IOException("Input too short for " + m + "x" + n + " constraints in line " + lineNumber);
+        }
+
+        // Read row and column
+        // block lengths
+        int[][] rowClues = nextClues(n);
+        int[][] columnClues = nextClues(m);
+        return new NonogramConstraints(m, n, rowClues, columnClues);
+    }
+
+    /**
+     * Reads a number of clue lines.
+     *
+     * @param count Number of lines
+     * @return Numbers per line
+     * @throws IOException If input ends too early
+     */
+    private int[][] nextClues(int count) throws IOException {
+        int[][] clues = new int[count][];
+        for (int i = 0; i < count; i++) {
+            if (!nextLine()) {
+                throw new IOException("Input ended after " + i + " of " + count + " constraints");
+            }
+            clues[i] = Arrays.copyOf(numbers, size);
+        }
+        return clues;
+    }
+
+    /**
+     * Reads numbers of next line with content.
+     *
+     * @return False if input has no more lines with content
+     * @throws IOException If line contains something else than numbers
+     */
+    private boolean nextLine() throws IOException {
+        while (buffer.hasRemaining()) {
+            lineNumber++;
+            size = 0;
+            boolean comment = false;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    break;
+                } else if (comment || b == ' ' || b == '\t' || b == '\r') {
+                    continue;
+                } else if (b == '%' && size == 0) {
+                    // Skip rest of line
+                    comment = true;
+                } else if (b >= '0' && b <= '9') {
+                    readNumber(b - '0');
+                } else {
+                    throw new IOException("Unexpected character '" + (char) b + "' in line " + lineNumber);
+                }
+            }
+            if (size > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the remaining digits of a number and adds it to the line.
+     *
+     * @param firstDigit Value of the first digit
+     * @throws IOException If number is too large
+     */
+    private void readNumber(int firstDigit) throws IOException {
+        long value = firstDigit;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get(buffer.position());
+            if (b < '0' || b > '9') {
+                break;
+            }
+            buffer.get();
+            value = 10 * value + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Number too large in line " + lineNumber);
+            }
+        }
+
+        if (size == numbers.length) {
+            numbers = Arrays.copyOf(numbers, 2 * size);
+        }
+        numbers[size++] = (int) value;
+    }
+}
@@ -0,0 +1,511 @@
+package nonogram;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves nonograms sent over HTTP, so a running JVM serves many requests.
+ * <p>
+ * {@code POST /solve} takes a puzzle in the input format as body and answers
+ * with its solutions, one line each as in {@code nonogramm.out}. The query
+ * parameters {@code mode} (see {@link SolutionMode#parse(String)}),
+ * {@code engine} ({@code backtrack} or {@code sat}, see
+ * {@link NonogramSolver.Engine}) and {@code timeout} in milliseconds are
+ * optional. Headers tell the number of solutions, the
+ * {@link SolveOutcome.Status}, the nodes visited and whether the answer came
+ * from the cache, from a solve of the same puzzle already running, or from a
+ * new solve. Identical puzzles in flight with the same mode, engine and
+ * timeout are solved once. A request whose shared solve timed out solves
+ * again with the time it has left, shared with other such requests, or gets
+ * the timed out result if no time is left. Complete results are kept in a
+ * cache of the least recently used puzzles. Without {@code timeout} a solve
+ * stops after {@link #DEFAULT_TIMEOUT_MILLIS}, longer timeouts than
+ * {@link #MAX_TIMEOUT_MILLIS} are rejected, and a solve whose solutions do
+ * not fit into a response is cancelled and answered with 413.
+ * {@code GET /stats} reports counters and latency percentiles.
+ * <p>
+ * Every request gets its own virtual thread if the runtime supports them,
+ * a thread of a cached pool otherwise.
+ */
+public final class NonogramServer {
+    /** Default number of cached results */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /** Timeout of requests without one, in milliseconds */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    /** Largest timeout accepted, in milliseconds */
+    public static final long MAX_TIMEOUT_MILLIS = 60_000;
+
+    // Largest puzzle accepted, in bytes
+    // and in cells per row or column
+    private static final int MAX_REQUEST_SIZE = 1 << 20;
+    private static final int MAX_SIDE = 1000;
+
+    // Larger results are sent but not cached,
+    // solves with larger results are cancelled
+    private static final int MAX_CACHED_RESULT_SIZE = 1 << 20;
+    private static final int MAX_RESPONSE_SIZE = 1 << 24;
+
+    static {
+        // Headers and body are written separately, without
+        // no-delay small answers wait for a delayed acknowledgement
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    // Solves running by mode, engine, puzzle and timeout,
+    // results of complete solves by mode, engine and puzzle
+    private final Map<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Result> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final int cacheSize;
+
+    // Statistics
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram solveTime = new LatencyHistogram();
+
+    /**
+     * Creates a server, {@link #start()} has to be called to accept requests.
+     *
+     * @param address   Address to listen on, port 0 picks a free port
+     * @param cacheSize Maximal number of cached results, 0 to disable caching
+     * @throws IOException If address can not be bound
+     */
+    public NonogramServer(InetSocketAddress address, int cacheSize) throws IOException {
+        this.cacheSize = cacheSize;
+        this.server = HttpServer.create(address, 0);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * Starts the server.
+     * <p>
+     * Usage: {@code NonogramServer [--host <host>] [--port <port>] [--cache <entries>]}.
+     * Listens on 127.0.0.1:8080 by default.
+     *
+     */
+    public static void main(String[] args) throws IOException {
+        // Read arguments
+        String host = "127.0.0.1";
+        int port = 8080;
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--host")) {
+                host = args[++i];
+            } else if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache")) {
+                cacheSize = Integer.parseInt(args[++i]);
+            }
+        }
+
+        NonogramServer server = new NonogramServer(new InetSocketAddress(host, port), cacheSize);
+        server.start();
+        System.out.println("Listening on http://" + host + ":" + server.getPort() + "/solve using "
+                + (server.isVirtualThreads() ? "virtual threads" : "platform threads"));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for running ones.
+     *
+     * @param delay Maximal time in seconds to wait for running requests
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return Port, also if it was picked by the system
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Tells whether requests run on virtual threads.
+     *
+     * @return False if the runtime does not support virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Converts statistics to a report.
+     *
+     * @return Counters, cache use and latencies, one per line
+     */
+    public String toString() {
+        int cached;
+        synchronized (cache) {
+            cached = cache.size();
+        }
+        return "Requests: " + requests.sum() + ", cache hits: " + hits.sum() + ", coalesced: " + coalesced.sum()
+                + ", solves: " + solves.sum() + ", errors: " + errors.sum() + "\n"
+                + "Cache: " + cached + " of " + cacheSize + " results\n"
+                + "Latency: " + latency + "\n"
+                + "Solve time: " + solveTime + "\n";
+    }
+
+    /**
+     * Answers a solve request.
+     *
+     * @param exchange Request and response
+     * @throws IOException If the response can not be sent
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long startTime = System.nanoTime();
+        requests.increment();
+        try (exchange) {
+            try {
+                answerSolve(exchange, startTime);
+            } catch (RuntimeException | Error e) {
+                // Also out of memory, so the
+                // server stays up and counts it
+                errors.increment();
+                send(exchange, 500, "Solve failed: " + e + "\n");
+            }
+        } finally {
+            latency.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Reads a solve request and sends its answer.
+     *
+     * @param exchange  Request and response
+     * @param startTime Time the request arrived, from {@link System#nanoTime()}
+     * @throws IOException If the response can not be sent
+     */
+    private void answerSolve(HttpExchange exchange, long startTime) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, "Use POST with a puzzle as body\n");
+            return;
+        }
+
+        // Read puzzle and parameters
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_REQUEST_SIZE + 1);
+        }
+        if (body.length > MAX_REQUEST_SIZE) {
+            send(exchange, 413, "Puzzle larger than " + MAX_REQUEST_SIZE + " bytes\n");
+            return;
+        }
+        NonogramConstraints constraints;
+        SolutionMode mode;
+        String modeName = "all";
+        NonogramSolver.Engine engine = NonogramSolver.Engine.BACKTRACK;
+        long timeout = DEFAULT_TIMEOUT_MILLIS;
+        try {
+            for (Map.Entry<String, String> parameter : parseQuery(exchange.getRequestURI().getRawQuery()).entrySet()) {
+                if (parameter.getKey().equals("mode")) {
+                    modeName = parameter.getValue();
+                } else if (parameter.getKey().equals("engine")) {
+                    engine = NonogramSolver.Engine.valueOf(parameter.getValue().toUpperCase());
+                } else if (parameter.getKey().equals("timeout")) {
+                    timeout = Long.parseLong(parameter.getValue());
+                    if (timeout <= 0 || timeout > MAX_TIMEOUT_MILLIS) {
+                        throw new IllegalArgumentException("Timeout has to be between 1 and "
+                                + MAX_TIMEOUT_MILLIS + " ms: " + timeout);
+                    }
+                }
+            }
+            mode = SolutionMode.parse(modeName);
+            constraints = new NonogramParser(ByteBuffer.wrap(body)).next();
+            if (constraints == null) {
+                throw new IOException("No nonogram found");
+            }
+            if (constraints.getM() > MAX_SIDE || constraints.getN() > MAX_SIDE) {
+                throw new IOException("Nonogram of " + constraints.getM() + "x" + constraints.getN()
+                        + " larger than " + MAX_SIDE + " cells per side");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            errors.increment();
+            send(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+
+        // Same mode, engine and clues give the same answer,
+        // engines find solutions in different orders
+        StringWriter canonical = new StringWriter();
+        NonogramGenerator.write(constraints, canonical);
+        String key = modeName + "\n" + engine + "\n" + canonical;
+
+        String source = "hit";
+        Result result = getCached(key);
+        if (result == null) {
+            // Only solves with the same timeout are shared. A running one was started
+            // by an earlier request, so it ends before the deadline of this request
+            String flightKey = key + "\n" + timeout;
+            Result shared = null;
+            while (result == null) {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(timeout) - (System.nanoTime() - startTime);
+                if (shared != null && remaining <= 0) {
+                    // Nothing left to solve again
+                    result = shared;
+                    break;
+                }
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                CompletableFuture<Result> running = inFlight.putIfAbsent(flightKey, future);
+                if (running == null) {
+                    source = "miss";
+                    try {
+                        result = solve(constraints, mode, engine, remaining);
+                        future.complete(result);
+                        putCached(key, result);
+                    } catch (RuntimeException | Error e) {
+                        future.completeExceptionally(e);
+                        throw e;
+                    } finally {
+                        inFlight.remove(flightKey);
+                    }
+                } else {
+                    // Wait for the solve
+                    // of another request
+                    source = "coalesced";
+                    try {
+                        // A solve started again may have been started by a request
+                        // with a later deadline, so a timed out result ends the wait
+                        shared = shared == null ? running.join()
+                                : running.copy().completeOnTimeout(shared, remaining, TimeUnit.NANOSECONDS).join();
+                    } catch (CompletionException | CancellationException e) {
+                        errors.increment();
+                        send(exchange, 500, "Solve failed: " + e.getCause() + "\n");
+                        return;
+                    }
+                    if (shared.tooLarge || shared.status != SolveOutcome.Status.TIMED_OUT
+                            && shared.status != SolveOutcome.Status.CANCELLED) {
+                        result = shared;
+                    }
+                    // Otherwise the shared solve stopped before the deadline
+                    // of this request, which solves again with the time left
+                }
+            }
+            if (source.equals("coalesced")) {
+                coalesced.increment();
+            }
+        } else {
+            hits.increment();
+        }
+
+        if (result.tooLarge) {
+            send(exchange, 413, "Solutions larger than " + MAX_RESPONSE_SIZE
+                    + " bytes, use mode=count or a limit of solutions\n");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.getResponseHeaders().set("X-Solutions", Long.toString(result.numberOfSolutions));
+        exchange.getResponseHeaders().set("X-Status", result.status.name());
+        exchange.getResponseHeaders().set("X-Nodes", Long.toString(result.numberOfNodes));
+        exchange.getResponseHeaders().set("X-Cache", source);
+        exchange.sendResponseHeaders(200, result.body.length == 0 ? -1 : result.body.length);
+        if (result.body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(result.body);
+            }
+        }
+    }
+
+    /**
+     * Answers a statistics request.
+     *
+     * @param exchange Request and response
+     * @throws IOException If the response can not be sent
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            send(exchange, 200, toString());
+        }
+    }
+
+    /**
+     * Solves a puzzle and collects its solutions. The solve is
+     * cancelled once the solutions do not fit into a response.
+     *
+     * @param constraints Constraints of the puzzle
+     * @param mode        Defines how many solutions are searched
+     * @param engine      Engine solving the puzzle
+     * @param nanos       Maximal time in nanoseconds
+     * @return Result of the solve
+     */
+    private Result solve(NonogramConstraints constraints, SolutionMode mode, NonogramSolver.Engine engine,
+                         long nanos) {
+        long startTime = System.nanoTime();
+        solves.increment();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NonogramSolver solver = new NonogramSolver(constraints, mode);
+        solver.setEngine(engine);
+        solver.setSolutionSink(solution -> {
+            if (out.size() > MAX_RESPONSE_SIZE) {
+                // Already cancelled, solutions until
+                // the search stops are dropped
+                return;
+            }
+            byte[] line = solution.toString().getBytes(StandardCharsets.US_ASCII);
+            out.write(line, 0, line.length);
+            out.write('\n');
+            if (out.size() > MAX_RESPONSE_SIZE) {
+                solver.cancel();
+            }
+        });
+        SolveOutcome outcome = solver.solve(nanos, TimeUnit.NANOSECONDS);
+        solveTime.record(System.nanoTime() - startTime);
+        boolean tooLarge = out.size() > MAX_RESPONSE_SIZE;
+        return new Result(outcome.getStatus(), outcome.getNumberOfSolutions(), outcome.getNumberOfNodes(),
+                tooLarge ? new byte[0] : out.toByteArray(), tooLarge);
+    }
+
+    /**
+     * Looks up a result in the cache.
+     *
+     * @param key Mode, engine and canonical puzzle
+     * @return Cached result or null
+     */
+    private Result getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Caches a complete result, dropping the least recently used if full.
+     *
+     * @param key    Mode, engine and canonical puzzle
+     * @param result Result of a solve
+     */
+    private void putCached(String key, Result result) {
+        if (cacheSize == 0 || result.tooLarge || result.status == SolveOutcome.Status.TIMED_OUT
+                || result.status == SolveOutcome.Status.CANCELLED || result.body.length > MAX_CACHED_RESULT_SIZE) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, result);
+            if (cache.size() > cacheSize) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Sends a text response.
+     *
+     * @param exchange Request and response
+     * @param status   HTTP status code
+     * @param text     Response body
+     * @throws IOException If the response can not be sent
+     */
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Splits a query into its parameters.
+     *
+     * @param query Raw query, may be null
+     * @return Decoded parameters by name
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task.
+     *
+     * @return Executor or null if the runtime has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // Looked up at runtime as the
+            // sources compile for Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Answer to a puzzle.
+     */
+    private static final class Result {
+        private final SolveOutcome.Status status;
+        private final long numberOfSolutions;
+        private final long numberOfNodes;
+        private final byte[] body;
+
+        // True if the solutions did not fit
+        // into a response, body is empty then
+        private final boolean tooLarge;
+
+        Result(SolveOutcome.Status status, long numberOfSolutions, long numberOfNodes, byte[] body,
+               boolean tooLarge) {
+            this.status = status;
+            this.numberOfSolutions = numberOfSolutions;
+            this.numberOfNodes = numberOfNodes;
+            this.body = body;
+            this.tooLarge = tooLarge;
+        }
+    }
+}
@@ -0,0 +1,1883 @@
+package nonogram;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a nonogram incredibly fast.
+ */
+public class NonogramSolver {
+    /** Unknown field on nonogram */
+    public static final char FIELD_UNKNOWN = ' ';
+    /** Black field on nonogram */
+    public static final char FIELD_BLACK = '#';
+    /** White field on nonogram */
+    public static final char FIELD_WHITE = '.';
+
+    /**
+     * How the solver searches.
+     */
+    public enum Engine {
+        /** Backtracking over row permutations with propagation */
+        BACKTRACK,
+        /** Clauses solved by the built-in {@link CdclSolver}, see {@link SatSearch} */
+        SAT
+    }
+
+    // Permutations tried between two looks at the clock
+    private static final long CLOCK_CHECK_MASK = (1 << 7) - 1;
+
+    // Constraints of the nonogram to solve
+    private final NonogramConstraints constraints;
+
+    // True if the constraints are transposed,
+    // so solutions are transposed back
+    private boolean transposed;
+
+    // Information to know in which
+    // block in column constraints
+    // processing currently is
+    private final int[][] columnIndex;
+    private final int[][] columnCounter;
+
+    // Permutation generators per row
+    private final PermutationGenerator[] rowPermutations;
+
+    // Trail of overwritten block information
+    // as (column, index, counter) triples
+    private final int[] trail;
+    private int trailSize;
+
+    // Row values before they were set,
+    // one buffer per row
+    private final char[][] rowBackups;
+
+    // Cells which have to be black or white
+    // per row, derived from block information
+    private final long[][] expectedBlack;
+    private final long[][] expectedWhite;
+
+    // Cells forced by the column blocks of the rows above
+    // per row, kept up to date with the block information
+    private final long[][] blockBlack;
+    private final long[][] blockWhite;
+
+    // Propagation of row and column constraints
+    private final LinePropagator propagator;
+
+    // Subtrees by column state,
+    // null if not cached
+    private TranspositionTable transpositionTable;
+
+    // Search counters,
+    // null if not instrumented
+    private SearchStatistics statistics;
+
+    // Failed literal detection before every row,
+    // null if not probing
+    private CellProber prober;
+    private int probeBudget;
+
+    // Engine searching, and the search
+    // of the SAT engine once it started
+    private Engine engine = Engine.BACKTRACK;
+    private volatile SatSearch satSearch;
+
+    // Calculated solutions
+    private final SolutionMode mode;
+    private final List<NonogrammSolution> solutions = new ArrayList<>();
+    private SolutionSink sink = solution -> solutions.add(solution.copy());
+    private long numberOfSolutions;
+    private long numberOfNodes;
+    private volatile boolean cancelled;
+
+    // Tasks of a parallel search,
+    // cancelled together with this solver
+    private volatile List<SearchTask> tasks = List.of();
+
+    // Deadline as System.nanoTime(),
+    // only used if set
+    private boolean hasDeadline;
+    private long deadline;
+    private boolean timedOut;
+    private long steps;
+
+    // Progress reporting
+    private ProgressListener progressListener;
+    private long progressInterval;
+    private long nextProgress;
+
+    // Permutations of the first row
+    // searched and possible
+    private long firstRowDone;
+    private double firstRowTotal;
+
+    // Index of the permutation tried per row,
+    // the position written to checkpoints
+    private final int[] cursor;
+
+    // Position to go on from, null if not resuming,
+    // and position where a stopped search ended
+    private int[] resumeCursor;
+    private long resumedSolutions;
+    private int[] stopCursor;
+
+    // Periodic checkpoints,
+    // only written if a path is set
+    private Path checkpointPath;
+    private long checkpointInterval;
+    private long nextCheckpoint;
+    private long puzzleFingerprint;
+    private SolutionWriter.Format checkpointFormat;
+    private long checkpoints;
+    private long checkpointNanos;
+
+    // Rows of a previous solution tried first,
+    // null if no hint is set
+    private long[][] hintRows;
+
+    /**
+     * Creates a solver with its own search state, searching all solutions.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     */
+    public NonogramSolver(NonogramConstraints constraints) {
+        this(constraints, SolutionMode.all());
+    }
+
+    /**
+     * Creates a solver which branches over rows or over columns.
+     * <p>
+     * To branch over columns the solver works on the
+     * {@link NonogramConstraints#transpose() transposed} nonogram and
+     * transposes every solution back before it reaches the sink. Solutions
+     * are the same either way, but may come in a different order.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     * @param mode        Defines how many solutions are searched
+     * @param transposed  True to branch over columns
+     */
+    public NonogramSolver(NonogramConstraints constraints, SolutionMode mode, boolean transposed) {
+        this(transposed ? constraints.transpose() : constraints, mode);
+        this.transposed = transposed;
+    }
+
+    /**
+     * Creates a solver which branches over rows or over columns,
+     * whichever the {@link OrientationEstimate} finds cheaper.
+     * The choice and the estimate are logged.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     * @param mode        Defines how many solutions are searched
+     * @return Solver for the cheaper orientation
+     */
+    public static NonogramSolver withCheaperOrientation(NonogramConstraints constraints, SolutionMode mode) {
+        OrientationEstimate estimate = OrientationEstimate.of(constraints);
+        System.getLogger(NonogramSolver.class.getName()).log(System.Logger.Level.INFO,
+                "Branching over {0}, estimated {1}",
+                estimate.isColumnsCheaper() ? "columns" : "rows", estimate);
+        return new NonogramSolver(constraints, mode, estimate.isColumnsCheaper());
+    }
+
+    /**
+     * Creates a solver with its own search state.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     * @param mode        Defines how many solutions are searched
+     */
+    public NonogramSolver(NonogramConstraints constraints, SolutionMode mode) {
+        this.constraints = constraints;
+        this.mode = mode;
+
+        int n = constraints.getN();
+        int m = constraints.getM();
+        this.columnIndex = new int[n][m];
+        this.columnCounter = new int[n][m];
+        this.trail = new int[3 * n * m];
+        this.rowBackups = new char[n][m];
+        this.cursor = new int[n];
+        this.expectedBlack = new long[n][constraints.getWords()];
+        this.expectedWhite = new long[n][constraints.getWords()];
+        this.blockBlack = new long[n][constraints.getWords()];
+        this.blockWhite = new long[n][constraints.getWords()];
+        this.propagator = new LinePropagator(constraints, true);
+
+        this.rowPermutations = new PermutationGenerator[n];
+        for (int row = 0; row < n; row++) {
+            rowPermutations[row] = constraints.createRowPermutations(row);
+        }
+        for (int row = 0; row < n - 1; row++) {
+            updateBlockMasks(row);
+        }
+    }
+
+    /**
+     * Starts solving the nonogram.
+     * <p>
+     * Reads {@code nonogramm.in} or the file given as argument and writes all
+     * solutions to {@code nonogramm.out} while they are found. Options:
+     * <ul>
+     * <li>{@code --threads <n>}: splits the search on several threads</li>
+     * <li>{@code --mode <mode>}: stops early, see {@link SolutionMode#parse(String)}</li>
+     * <li>{@code --format binary}: writes one bit per cell instead of text</li>
+     * <li>{@code --order dynamic}: searches with {@link DynamicSearch}</li>
+     * <li>{@code --engine sat}: searches with the {@link Engine#SAT SAT engine}</li>
+     * <li>{@code --orientation columns|auto}: branches over columns, or over
+     * whatever the {@link OrientationEstimate} finds cheaper</li>
+     * <li>{@code --cache <entries>}: caches subtrees in a {@link TranspositionTable}</li>
+     * <li>{@code --stats}: prints {@link SearchStatistics} per row</li>
+     * <li>{@code --probe <cells>}: probes up to that many cells per node with a
+     * {@link CellProber}</li>
+     * <li>{@code --checkpoint <file>}: writes a {@link Checkpoint} every
+     * {@code --checkpoint-interval <ms>} and on shutdown, and resumes from the
+     * file if it exists</li>
+     * <li>{@code --timeout <ms>}: stops at a deadline and prints the {@link SolveOutcome}</li>
+     * <li>{@code --progress <ms>}: reports progress while searching</li>
+     * </ul>
+     * Timeouts, progress and checkpoints need a single thread and rows in order,
+     * caches, statistics and orientations rows in order, a dynamic order and the
+     * SAT engine a single thread, the SAT engine also no dynamic order, and
+     * checkpoints, probing, caches, statistics and progress the backtracking
+     * engine. Other combinations are rejected rather than ignored.
+     *
+     */
+    public static void main(String[] args) throws IOException {
+        // Read arguments
+        int threads = 1;
+        SolutionMode mode = SolutionMode.all();
+        SolutionWriter.Format format = SolutionWriter.Format.TEXT;
+        boolean dynamicOrder = false;
+        boolean satEngine = false;
+        String orientation = "rows";
+        int cacheSize = 0;
+        boolean stats = false;
+        long timeout = 0;
+        long progress = 0;
+        int probeBudget = 0;
+        String checkpoint = null;
+        long checkpointInterval = 60_000;
+        String input = "nonogramm.in";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--mode")) {
+                mode = SolutionMode.parse(args[++i]);
+            } else if (args[i].equals("--format")) {
+                format = SolutionWriter.Format.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--timeout")) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--progress")) {
+                progress = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--stats")) {
+                stats = true;
+            } else if (args[i].equals("--checkpoint")) {
+                checkpoint = args[++i];
+            } else if (args[i].equals("--checkpoint-interval")) {
+                checkpointInterval = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--probe")) {
+                probeBudget = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache")) {
+                cacheSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--order")) {
+                dynamicOrder = args[++i].equals("dynamic");
+            } else if (args[i].equals("--orientation")) {
+                orientation = args[++i];
+            } else if (args[i].equals("--engine")) {
+                satEngine = args[++i].equals("sat");
+            } else {
+                input = args[i];
+            }
+        }
+
+        if (checkpoint != null && (threads > 1 || dynamicOrder || satEngine)) {
+            throw new IllegalArgumentException("Checkpoints need a single thread and rows in order");
+        }
+        if ((timeout > 0 || progress > 0) && (threads > 1 || dynamicOrder)) {
+            throw new IllegalArgumentException("Timeouts and progress need a single thread and rows in order");
+        }
+        if (threads > 1 && dynamicOrder) {
+            throw new IllegalArgumentException("A dynamic order needs a single thread");
+        }
+        if ((cacheSize > 0 || stats || !orientation.equals("rows")) && dynamicOrder) {
+            throw new IllegalArgumentException("Caches, statistics and orientations need rows in order");
+        }
+        if (satEngine && (threads > 1 || dynamicOrder)) {
+            throw new IllegalArgumentException("The SAT engine needs a single thread and no dynamic order");
+        }
+        if ((probeBudget > 0 || cacheSize > 0 || stats || progress > 0) && satEngine) {
+            throw new IllegalArgumentException("Probing, caches, statistics and progress need the backtracking engine");
+        }
+
+        // Initialize result variables
+        NonogramConstraints constraints = NonogramConstraints.read(Paths.get(input));
+        NonogramSolver solver = orientation.equals("auto")
+                ? NonogramSolver.withCheaperOrientation(constraints, mode)
+                : new NonogramSolver(constraints, mode, orientation.equals("columns"));
+        solver.setEngine(satEngine ? Engine.SAT : Engine.BACKTRACK);
+        solver.setProbeBudget(probeBudget);
+        Checkpoint resumed = null;
+        if (checkpoint != null) {
+            // Go on from an earlier run,
+            // keeping its solutions
+            solver.setCheckpoint(Paths.get(checkpoint), checkpointInterval, TimeUnit.MILLISECONDS, format);
+            if (Files.exists(Paths.get(checkpoint))) {
+                resumed = Checkpoint.read(Paths.get(checkpoint));
+                solver.resume(resumed);
+            }
+
+            // Write a last checkpoint
+            // when stopped, e.g. on deploy
+            Thread mainThread = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                solver.cancel();
+                try {
+                    mainThread.join(30_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        if (cacheSize > 0) {
+            solver.setTranspositionTable(new TranspositionTable(cacheSize));
+        }
+        if (stats) {
+            solver.setStatistics(new SearchStatistics(solver.getConstraints().getN() + 1));
+        }
+        if (progress > 0) {
+            solver.setProgressListener((solutions, nodes, explored) -> System.err.printf(
+                    "%d solution(s), %d nodes, %.1f %% of first row explored%n", solutions, nodes, 100 * explored),
+                    progress, TimeUnit.MILLISECONDS);
+        }
+
+        // Start measuring execution time
+        long startTime = System.currentTimeMillis();
+        System.out.println(resumed == null ? "Going down that rabbit hole..."
+                : "Going back down that rabbit hole, " + resumed + "...");
+        long numberOfSolutions;
+        long numberOfNodes;
+        String details = null;
+        try (SolutionWriter out = new SolutionWriter(Paths.get("nonogramm.out"), format, constraints.getN(),
+                constraints.getM(), resumed == null ? -1 : mode.isKeepSolutions() ? resumed.getSolutions() : 0)) {
+            solver.setSolutionSink(out);
+            if (dynamicOrder) {
+                DynamicSearch search = new DynamicSearch(constraints, mode);
+                search.setSolutionSink(out);
+                search.setProbeBudget(probeBudget);
+                numberOfSolutions = search.solve();
+                numberOfNodes = search.getNumberOfNodes();
+                if (search.getProber() != null) {
+                    details = "Probing: " + search.getProber();
+                }
+            } else if (timeout > 0) {
+                SolveOutcome outcome = solver.solve(timeout, TimeUnit.MILLISECONDS);
+                numberOfSolutions = outcome.getNumberOfSolutions();
+                numberOfNodes = outcome.getNumberOfNodes();
+                details = "Outcome: " + outcome;
+            } else {
+                numberOfSolutions = threads > 1 ? solver.solveParallel(threads) : solver.solve();
+                numberOfNodes = solver.getNumberOfNodes();
+            }
+        }
+        if (!dynamicOrder) {
+            if (solver.getSatSolver() != null) {
+                details = (details == null ? "" : details + System.lineSeparator())
+                        + "Conflicts: " + solver.getSatSolver().getConflicts();
+            }
+            if (solver.getTranspositionTable() != null) {
+                details = (details == null ? "" : details + System.lineSeparator())
+                        + "Cache: " + solver.getTranspositionTable();
+            }
+            if (solver.getProber() != null) {
+                details = (details == null ? "" : details + System.lineSeparator())
+                        + "Probing: " + solver.getProber();
+            }
+            if (solver.getStatistics() != null) {
+                details = (details == null ? "" : details + System.lineSeparator())
+                        + solver.getStatistics().toString().trim();
+            }
+        }
+
+        // Check number of solutions found
+        if (numberOfSolutions > 0) {
+            System.out.println("Hooray! " + numberOfSolutions + " solution(s) found"
+                    + (mode.isLimitReached(numberOfSolutions) ? ", stopped at limit" : ""));
+        } else {
+            System.out.println("No solution found :/");
+        }
+
+        // Display execution time
+        long stopTime = System.currentTimeMillis();
+        long elapsedTime = stopTime - startTime;
+        System.out.println("Execution time was: " + elapsedTime + " ms");
+        System.out.println("Nodes visited: " + numberOfNodes);
+        if (details != null) {
+            System.out.println(details);
+        }
+        if (checkpoint != null) {
+            System.out.printf("Checkpoints: %d written in %.1f ms%s%n", solver.getCheckpoints(),
+                    solver.getCheckpointNanos() / 1e6,
+                    solver.getCheckpoint() != null ? ", resume from " + checkpoint : "");
+        }
+    }
+
+    /**
+     * Solves the nonogram from an empty grid.
+     *
+     * @return Number of solutions found
+     */
+    public long solve() {
+        return solveFrom(new NonogrammSolution(constraints.getN(), constraints.getM()));
+    }
+
+    /**
+     * Solves the nonogram from a grid with some cells given, e.g. cells an
+     * editor pinned. Given cells are kept by the search like cells forced by
+     * propagation, so only solutions agreeing with them are found.
+     *
+     * @param given Grid of the puzzle as given to the solver, unknown cells are searched
+     * @return Number of solutions found
+     * @throws IllegalStateException If checkpoints are written, as they only cover an empty grid
+     */
+    public long solve(NonogrammSolution given) {
+        return solveFrom(toSearchGrid(given));
+    }
+
+    /**
+     * Solves the nonogram from a grid with some cells given until done or a deadline passes.
+     *
+     * @param given   Grid of the puzzle as given to the solver, unknown cells are searched
+     * @param timeout Maximal time of the search
+     * @param unit    Unit of timeout
+     * @return How the search ended and what was found
+     * @throws IllegalStateException If checkpoints are written, as they only cover an empty grid
+     * @see #solve(long, TimeUnit)
+     */
+    public SolveOutcome solve(NonogrammSolution given, long timeout, TimeUnit unit) {
+        return solveFrom(toSearchGrid(given), timeout, unit);
+    }
+
+    /**
+     * Solves the nonogram from a grid.
+     *
+     * @param solution Grid in the orientation searched
+     * @return Number of solutions found
+     */
+    private long solveFrom(NonogrammSolution solution) {
+        if (engine == Engine.SAT) {
+            return solveSat(solution, Long.MAX_VALUE).getNumberOfSolutions();
+        }
+        long startTime = System.nanoTime();
+        SolveEvent event = beginSolve();
+        nextCheckpoint = startTime + checkpointInterval;
+        long numberOfSolutions = resumedSolutions;
+        if (propagate(solution)) {
+            countFirstRow(solution);
+            numberOfSolutions += solve(solution, 0);
+        }
+        endSolve(event, 1, numberOfSolutions, System.nanoTime() - startTime);
+        finishCheckpoints();
+        return numberOfSolutions;
+    }
+
+    /**
+     * Solves the nonogram from an empty grid until done or a deadline passes.
+     * <p>
+     * The clock is only read every 128 permutations, so the search may run slightly
+     * longer than the timeout. Solutions found until then are passed to the
+     * sink as usual. {@link #cancel()} stops the search as well.
+     *
+     * @param timeout Maximal time of the search
+     * @param unit    Unit of timeout
+     * @return How the search ended and what was found
+     */
+    public SolveOutcome solve(long timeout, TimeUnit unit) {
+        return solveFrom(new NonogrammSolution(constraints.getN(), constraints.getM()), timeout, unit);
+    }
+
+    /**
+     * Solves the nonogram from a grid until done or a deadline passes.
+     *
+     * @param solution Grid in the orientation searched
+     * @param timeout  Maximal time of the search
+     * @param unit     Unit of timeout
+     * @return How the search ended and what was found
+     */
+    private SolveOutcome solveFrom(NonogrammSolution solution, long timeout, TimeUnit unit) {
+        if (engine == Engine.SAT) {
+            return solveSat(solution, unit.toNanos(timeout));
+        }
+        long startTime = System.nanoTime();
+        hasDeadline = true;
+        deadline = startTime + unit.toNanos(timeout);
+        nextProgress = startTime + progressInterval;
+        nextCheckpoint = startTime + checkpointInterval;
+
+        SolveEvent event = beginSolve();
+        long numberOfSolutions = resumedSolutions;
+        if (propagate(solution)) {
+            countFirstRow(solution);
+            numberOfSolutions += solve(solution, 0);
+        }
+        long nanos = System.nanoTime() - startTime;
+        endSolve(event, 1, numberOfSolutions, nanos);
+        finishCheckpoints();
+
+        SolveOutcome.Status status;
+        if (mode.isLimitReached(numberOfSolutions)) {
+            status = SolveOutcome.Status.SOLVED;
+        } else if (cancelled) {
+            status = SolveOutcome.Status.CANCELLED;
+        } else if (timedOut) {
+            status = SolveOutcome.Status.TIMED_OUT;
+        } else {
+            status = numberOfSolutions > 0 ? SolveOutcome.Status.SOLVED : SolveOutcome.Status.UNSAT;
+        }
+        return new SolveOutcome(status, numberOfSolutions, numberOfNodes, getExplored(), nanos);
+    }
+
+    /**
+     * Solves the nonogram from a grid with the SAT engine.
+     *
+     * @param solution Grid in the orientation searched
+     * @param nanos    Maximal time of the search in nanoseconds
+     * @return How the search ended and what was found
+     * @throws IllegalStateException If an option only the backtracking engine supports is set
+     */
+    private SolveOutcome solveSat(NonogrammSolution solution, long nanos) {
+        if (checkpointPath != null || prober != null || transpositionTable != null || statistics != null
+                || progressListener != null || hintRows != null) {
+            throw new IllegalStateException(
+                    "Checkpoints, probing, caches, statistics, progress and hints need the backtracking engine");
+        }
+        SatSearch search = new SatSearch(constraints, mode);
+        search.setGiven(solution);
+        search.setSolutionSink(found -> sink.accept(transposed ? found.transpose() : found));
+        satSearch = search;
+        if (cancelled) {
+            search.cancel();
+        }
+        SolveOutcome outcome = search.solve(nanos, TimeUnit.NANOSECONDS);
+        numberOfSolutions += outcome.getNumberOfSolutions();
+        numberOfNodes += outcome.getNumberOfNodes();
+        return outcome;
+    }
+
+    /**
+     * Counts the permutations of the first row
+     * to tell how far the search got.
+     *
+     * @param solution Grid after the initial propagation
+     */
+    private void countFirstRow(NonogrammSolution solution) {
+        int[] blocks = constraints.getRowBlocks(0);
+        char[] firstRow = new char[constraints.getM()];
+        for (int col = 0; col < firstRow.length; col++) {
+            firstRow[col] = solution.get(0, col);
+        }
+        firstRowTotal = new LineSolver(firstRow.length, blocks.length).count(blocks, firstRow, firstRow.length);
+    }
+
+    /**
+     * Solves the nonogram from an empty grid using several threads.
+     *
+     * @param threads Number of threads
+     * @return Number of solutions found
+     * @throws IllegalStateException If the SAT engine is set
+     */
+    public long solveParallel(int threads) {
+        requireBacktracking();
+        NonogrammSolution solution = new NonogrammSolution(constraints.getN(), constraints.getM());
+        long startTime = System.nanoTime();
+        SolveEvent event = beginSolve();
+        long numberOfSolutions = propagate(solution) ? solveParallel(solution, threads) : 0;
+        endSolve(event, threads, numberOfSolutions, System.nanoTime() - startTime);
+        return numberOfSolutions;
+    }
+
+    /**
+     * Gets constraints of the nonogram as searched.
+     *
+     * @return Constraints, transposed if the solver branches over columns
+     */
+    public NonogramConstraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Tells whether the solver branches over columns.
+     *
+     * @return True if the searched constraints are transposed
+     */
+    public boolean isTransposed() {
+        return transposed;
+    }
+
+    /**
+     * Sets where found solutions go to.
+     * <p>
+     * By default solutions are copied into {@link #getSolutions()}. With a
+     * sink set they are only passed to the sink. In parallel mode, solutions
+     * of a subtree are collected until all earlier subtrees are done, so the
+     * sink receives them in the same order as in sequential mode.
+     *
+     * @param sink Receiver of solutions
+     */
+    public void setSolutionSink(SolutionSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the table caching subtrees by column state.
+     * <p>
+     * Dead ends are skipped in every mode. Numbers of solutions are only
+     * taken from the table if solutions are not kept, so counting turns
+     * into dynamic programming over column states. The table may be shared
+     * by several solvers of the same nonogram.
+     *
+     * @param transpositionTable Table to use, null to disable caching
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Gets the table caching subtrees by column state.
+     *
+     * @return Table, null if caching is disabled
+     */
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets a receiver of progress, called while searching.
+     *
+     * @param progressListener Receiver of progress, null to disable reporting
+     * @param interval         Time between two reports
+     * @param unit             Unit of interval
+     */
+    public void setProgressListener(ProgressListener progressListener, long interval, TimeUnit unit) {
+        this.progressListener = progressListener;
+        this.progressInterval = unit.toNanos(interval);
+        this.nextProgress = System.nanoTime() + progressInterval;
+    }
+
+    /**
+     * Gets share of the first row permutations searched completely.
+     *
+     * @return Value between 0 and 1
+     */
+    public double getExplored() {
+        return firstRowTotal == 0 ? 1 : firstRowDone / firstRowTotal;
+    }
+
+    /**
+     * Sets how many cells are probed for failed literals before every row.
+     * <p>
+     * Probing costs two propagations per cell, but finds contradictions
+     * below the current row before any permutation of it is tried. Solutions
+     * and their order stay the same.
+     *
+     * @param probeBudget Maximal number of cells probed per node, 0 to disable probing
+     * @see CellProber
+     */
+    public void setProbeBudget(int probeBudget) {
+        this.probeBudget = probeBudget;
+        this.prober = probeBudget > 0 ? new CellProber(propagator, probeBudget) : null;
+    }
+
+    /**
+     * Gets the prober finding failed literals.
+     *
+     * @return Prober, null if not probing
+     */
+    public CellProber getProber() {
+        return prober;
+    }
+
+    /**
+     * Sets the engine searching.
+     * <p>
+     * The SAT engine finds the same solutions in another order. It works with
+     * all modes, orientations, given cells, timeouts and cancelling, but only
+     * on one thread and without checkpoints, probing, caches, statistics,
+     * progress or hints, which are rejected when solving.
+     *
+     * @param engine Engine, {@link Engine#BACKTRACK} by default
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Gets the engine searching.
+     *
+     * @return Engine
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the SAT solver of the last solve, e.g. for its statistics.
+     *
+     * @return Solver, null if the SAT engine has not solved yet
+     */
+    public CdclSolver getSatSolver() {
+        SatSearch search = satSearch;
+        return search == null ? null : search.getSolver();
+    }
+
+    /**
+     * Sets a solution whose rows are tried before all other permutations.
+     * <p>
+     * After an edit of the puzzle, the solution of the puzzle before is
+     * often still a solution or close to one, so it is found after few nodes.
+     * Rows not fulfilling their clue any more are not tried first. The same
+     * solutions are found, but in another order, so hints can not be used
+     * with checkpoints.
+     *
+     * @param hint Solution as returned by the solver, null to clear the hint
+     * @throws IllegalStateException If checkpoints are written
+     */
+    public void setHint(NonogrammSolution hint) {
+        if (hint != null && checkpointPath != null) {
+            throw new IllegalStateException("Hints change the order of the search, checkpoints would not match");
+        }
+        this.hintRows = hint == null ? null : toHintRows(transposed ? hint.transpose() : hint);
+    }
+
+    /**
+     * Writes a {@link Checkpoint} periodically while searching, and once more
+     * if the search is cancelled or times out.
+     * <p>
+     * The sink is flushed before every checkpoint, so all solutions found up to
+     * the checkpoint are stored. The file is deleted once the search is
+     * complete. Only {@link #solve()} and {@link #solve(long, TimeUnit)} write
+     * checkpoints, and not together with a {@link #setHint(NonogrammSolution) hint}.
+     * The clock is read every 128 permutations, as for timeouts.
+     *
+     * @param path     Checkpoint file, null to disable checkpoints
+     * @param interval Time between two checkpoints
+     * @param unit     Unit of interval
+     */
+    public void setCheckpoint(Path path, long interval, TimeUnit unit) {
+        setCheckpoint(path, interval, unit, null);
+    }
+
+    /**
+     * Writes a {@link Checkpoint} periodically while searching, as
+     * {@link #setCheckpoint(Path, long, TimeUnit)}, for a sink storing
+     * solutions in a {@link SolutionWriter} file. The format is recorded,
+     * so the file is not resumed in another one.
+     *
+     * @param path     Checkpoint file, null to disable checkpoints
+     * @param interval Time between two checkpoints
+     * @param unit     Unit of interval
+     * @param format   Format of the solution file, null if solutions are not stored in a file
+     */
+    public void setCheckpoint(Path path, long interval, TimeUnit unit, SolutionWriter.Format format) {
+        if (path != null && hintRows != null) {
+            throw new IllegalStateException("Hints change the order of the search, checkpoints would not match");
+        }
+        this.checkpointPath = path;
+        this.checkpointInterval = unit.toNanos(interval);
+        this.checkpointFormat = format;
+        this.puzzleFingerprint = Checkpoint.fingerprint(constraints);
+    }
+
+    /**
+     * Goes on from a checkpoint with the next solve.
+     * <p>
+     * Permutations done before the checkpoint are skipped, so only solutions
+     * after it are passed to the sink, while the solutions before are counted.
+     * A {@link SolutionWriter} can be opened to keep just the solutions before
+     * the checkpoint. The solver has to branch and probe as the one which wrote
+     * the checkpoint, search in the same mode and store solutions in the same
+     * format, so checkpoints have to be set before resuming.
+     *
+     * @param checkpoint Checkpoint to go on from
+     * @throws IllegalArgumentException If the checkpoint belongs to another puzzle or search
+     */
+    public void resume(Checkpoint checkpoint) {
+        if (checkpoint.getPuzzle() != Checkpoint.fingerprint(constraints)
+                || checkpoint.isTransposed() != transposed || checkpoint.getProbeBudget() != probeBudget) {
+            throw new IllegalArgumentException("Checkpoint belongs to another puzzle, orientation or probe budget");
+        }
+        if (!checkpoint.getMode().equals(mode) || checkpoint.getFormat() != checkpointFormat) {
+            throw new IllegalArgumentException("Checkpoint was written in mode " + checkpoint.getMode()
+                    + " with format " + checkpoint.getFormat() + ", not " + mode + " with format " + checkpointFormat);
+        }
+        if (checkpoint.getCursor().length > constraints.getN()) {
+            throw new IllegalArgumentException("Checkpoint has more rows than the puzzle");
+        }
+        this.resumeCursor = checkpoint.getCursor();
+        this.resumedSolutions = checkpoint.getSolutions();
+        this.numberOfSolutions = checkpoint.getSolutions();
+        this.numberOfNodes = checkpoint.getNodes();
+        this.firstRowDone = resumeCursor[0];
+    }
+
+    /**
+     * Gets position where the last search was cancelled or timed out.
+     *
+     * @return Checkpoint to resume from, null if the search was not stopped before completion
+     */
+    public Checkpoint getCheckpoint() {
+        return stopCursor == null ? null : new Checkpoint(Checkpoint.fingerprint(constraints), transposed,
+                probeBudget, mode, checkpointFormat, stopCursor.clone(), numberOfSolutions, numberOfNodes);
+    }
+
+    /**
+     * Gets number of checkpoints written.
+     *
+     * @return Number of checkpoints
+     */
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Gets time spent writing checkpoints, including flushing the sink.
+     *
+     * @return Time in nanoseconds
+     */
+    public long getCheckpointNanos() {
+        return checkpointNanos;
+    }
+
+    /**
+     * Sets counters to be updated by the search.
+     * <p>
+     * With statistics set, {@link #solve()} and {@link #solveParallel(int)}
+     * also emit flight recorder events and record the solve in the
+     * {@link SolverMonitor}. In parallel mode the rows tried up front are
+     * not counted.
+     *
+     * @param statistics Counters with a depth per row plus one, null to disable instrumentation
+     */
+    public void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Gets counters updated by the search.
+     *
+     * @return Statistics, null if not instrumented
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets solutions found so far.
+     *
+     * @return Calculated solutions, empty if a sink is set
+     */
+    public List<NonogrammSolution> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets number of solutions found so far.
+     *
+     * @return Number of solutions, including those not kept
+     */
+    public long getNumberOfSolutions() {
+        return numberOfSolutions;
+    }
+
+    /**
+     * Stops the search as soon as possible.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (SearchTask task : tasks) {
+            task.solver.cancel();
+        }
+        SatSearch search = satSearch;
+        if (search != null) {
+            search.cancel();
+        }
+    }
+
+    /**
+     * Gets number of visited nodes.
+     *
+     * @return Number of calls of the backtracking step
+     */
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Sets all cells forced by the constraints before searching.
+     *
+     * @param solution Empty solution
+     * @return False if the nonogram has no solution
+     */
+    public boolean propagate(NonogrammSolution solution) {
+        propagator.markAllDirty();
+        return propagator.propagate(solution);
+    }
+
+    /**
+     * Solves a nonogram using several threads.
+     * <p>
+     * The permutations of the first one or two rows are tried up front and
+     * every remaining subtree is solved by a fork/join task with its own
+     * solver state. Solutions are merged in the order of the subtrees, so the
+     * result is the same as for {@link #solve(NonogrammSolution, int)}. Once
+     * the subtrees merged so far reach the limit of solutions, the remaining
+     * tasks are cancelled.
+     *
+     * @param solution Current solution with no row set yet
+     * @param threads  Number of threads
+     * @return Number of solutions found
+     * @throws IllegalStateException If the SAT engine is set
+     */
+    public long solveParallel(NonogrammSolution solution, int threads) {
+        requireBacktracking();
+        // Split on first row, take second row
+        // too if there are not enough subtrees
+        List<SearchTask> tasks = new ArrayList<>();
+        long nodesBefore = numberOfNodes;
+        split(solution, 0, 1, tasks);
+        if (tasks.size() < 4 * threads && constraints.getN() > 1) {
+            tasks.clear();
+            numberOfNodes = nodesBefore;
+            split(solution, 0, 2, tasks);
+        }
+
+        this.tasks = tasks;
+        if (cancelled) {
+            cancel();
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (SearchTask task : tasks) {
+                pool.execute(task);
+            }
+
+            // Merge results in order
+            // until limit is reached
+            long numberOfSolutions = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                SearchTask task = tasks.get(i);
+                long found = Math.min(task.join(), mode.getLimit() - numberOfSolutions);
+                numberOfSolutions += found;
+                for (NonogrammSolution taskSolution : task.solver.solutions.subList(0,
+                        (int) Math.min(found, task.solver.solutions.size()))) {
+                    sink.accept(taskSolution);
+                }
+                numberOfNodes += task.solver.numberOfNodes;
+                if (statistics != null) {
+                    statistics.add(task.solver.statistics);
+                }
+                if (prober != null) {
+                    prober.add(task.solver.prober);
+                }
+
+                if (mode.isLimitReached(numberOfSolutions)) {
+                    // Later subtrees are not needed
+                    for (int j = i + 1; j < tasks.size(); j++) {
+                        tasks.get(j).solver.cancel();
+                    }
+                    break;
+                }
+            }
+            this.numberOfSolutions += numberOfSolutions;
+            return numberOfSolutions;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets rows up to a depth and creates a task for every subtree below.
+     *
+     * @param solution   Current solution
+     * @param rowIndex   Row index
+     * @param splitDepth Row index at which tasks are created
+     * @param tasks      Created tasks
+     */
+    private void split(NonogrammSolution solution, int rowIndex, int splitDepth, List<SearchTask> tasks) {
+        if (rowIndex == splitDepth) {
+            NonogramSolver solver = new NonogramSolver(constraints, mode);
+            solver.transposed = transposed;
+            solver.setTranspositionTable(transpositionTable);
+            solver.setProbeBudget(probeBudget);
+            solver.hintRows = hintRows;
+            if (statistics != null) {
+                solver.setStatistics(new SearchStatistics(statistics.getDepths()));
+            }
+            tasks.add(new SearchTask(solver, solution.copy(), rowIndex,
+                    rowIndex == 0 ? null : columnIndex[rowIndex - 1].clone(),
+                    rowIndex == 0 ? null : columnCounter[rowIndex - 1].clone()));
+            return;
+        }
+        numberOfNodes++;
+
+        getExpectedRow(solution, rowIndex);
+        PermutationGenerator permutations = rowPermutations[rowIndex];
+        permutations.reset(expectedBlack[rowIndex], expectedWhite[rowIndex]);
+        while (!cancelled && permutations.next()) {
+            char[] oldValues = solution.setRow(rowIndex, permutations.getRow(), 0, rowBackups[rowIndex]);
+            int trailMark = updateBlockInformation(solution, rowIndex);
+            int propagationMark = propagator.getTrailSize();
+
+            if (propagateRow(solution, oldValues)) {
+                split(solution, rowIndex + 1, splitDepth, tasks);
+            }
+
+            propagator.undo(solution, propagationMark);
+            resetBlockInformation(rowIndex, trailMark);
+            solution.resetRow(rowIndex, oldValues);
+        }
+    }
+
+    /**
+     * Lists the subtrees one row below a prefix of permutation indices.
+     * <p>
+     * Entry d of a prefix is the position of the permutation of row d among
+     * those the search tries below the rows before, the empty prefix stands
+     * for the whole search. Only prefixes passing propagation are listed, in
+     * the order the search visits them, so solving the prefixes of every row
+     * one after another with {@link #solve(int[])} gives the same solutions in
+     * the same order as {@link #solve()}.
+     *
+     * @param prefix Permutation indices of the first rows, shorter than the number of rows
+     * @return Prefixes one row longer, empty if there is no solution below the prefix
+     * @throws IllegalStateException If the SAT engine is set
+     */
+    public List<int[]> expand(int[] prefix) {
+        requireBacktracking();
+        NonogrammSolution solution = new NonogrammSolution(constraints.getN(), constraints.getM());
+        int[] trailMarks = new int[prefix.length];
+        int propagationMark = propagator.getTrailSize();
+        List<int[]> prefixes = new ArrayList<>();
+        if (setPrefix(solution, prefix, trailMarks)) {
+            int rowIndex = prefix.length;
+            getExpectedRow(solution, rowIndex);
+            PermutationGenerator permutations = rowPermutations[rowIndex];
+            permutations.reset(expectedBlack[rowIndex], expectedWhite[rowIndex]);
+            for (int index = 0; permutations.next(); index++) {
+                char[] oldValues = solution.setRow(rowIndex, permutations.getRow(), 0, rowBackups[rowIndex]);
+                int trailMark = updateBlockInformation(solution, rowIndex);
+                int rowMark = propagator.getTrailSize();
+
+                if (propagateRow(solution, oldValues)) {
+                    int[] longer = Arrays.copyOf(prefix, rowIndex + 1);
+                    longer[rowIndex] = index;
+                    prefixes.add(longer);
+                }
+
+                propagator.undo(solution, rowMark);
+                resetBlockInformation(rowIndex, trailMark);
+                solution.resetRow(rowIndex, oldValues);
+            }
+        }
+        resetPrefix(solution, prefix, trailMarks, propagationMark);
+        return prefixes;
+    }
+
+    /**
+     * Solves the subtree below a prefix listed by {@link #expand(int[])}.
+     *
+     * @param prefix Permutation indices of the first rows
+     * @return Number of solutions found
+     * @throws IllegalStateException If the SAT engine is set
+     */
+    public long solve(int[] prefix) {
+        requireBacktracking();
+        NonogrammSolution solution = new NonogrammSolution(constraints.getN(), constraints.getM());
+        int[] trailMarks = new int[prefix.length];
+        int propagationMark = propagator.getTrailSize();
+        long numberOfSolutions = setPrefix(solution, prefix, trailMarks) ? solve(solution, prefix.length) : 0;
+        resetPrefix(solution, prefix, trailMarks, propagationMark);
+        return numberOfSolutions;
+    }
+
+    /**
+     * Checks that the search can be split into subtrees of rows.
+     *
+     * @throws IllegalStateException If the SAT engine is set
+     */
+    private void requireBacktracking() {
+        if (engine != Engine.BACKTRACK) {
+            throw new IllegalStateException("Parallel and partitioned searches need the backtracking engine");
+        }
+    }
+
+    /**
+     * Propagates an empty solution and sets the rows of a prefix.
+     *
+     * @param solution   Empty solution
+     * @param prefix     Permutation indices of the first rows
+     * @param trailMarks Block trail position before every row, -1 for rows not set
+     * @return False if a constraint is violated
+     */
+    private boolean setPrefix(NonogrammSolution solution, int[] prefix, int[] trailMarks) {
+        Arrays.fill(trailMarks, -1);
+        if (!propagate(solution)) {
+            return false;
+        }
+        for (int rowIndex = 0; rowIndex < prefix.length; rowIndex++) {
+            getExpectedRow(solution, rowIndex);
+            PermutationGenerator permutations = rowPermutations[rowIndex];
+            permutations.reset(expectedBlack[rowIndex], expectedWhite[rowIndex]);
+            for (int index = 0; index <= prefix[rowIndex]; index++) {
+                if (!permutations.next()) {
+                    throw new IllegalArgumentException("Row " + rowIndex + " has no permutation " + prefix[rowIndex]);
+                }
+            }
+            char[] oldValues = solution.setRow(rowIndex, permutations.getRow(), 0, rowBackups[rowIndex]);
+            trailMarks[rowIndex] = updateBlockInformation(solution, rowIndex);
+            if (!propagateRow(solution, oldValues)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes back the rows of a prefix and all propagation, so the solver can be used again.
+     *
+     * @param solution        Solution the prefix was set on
+     * @param prefix          Permutation indices of the first rows
+     * @param trailMarks      Block trail position before every row, -1 for rows not set
+     * @param propagationMark Propagation trail position before the prefix
+     */
+    private void resetPrefix(NonogrammSolution solution, int[] prefix, int[] trailMarks, int propagationMark) {
+        propagator.undo(solution, propagationMark);
+        for (int rowIndex = prefix.length - 1; rowIndex >= 0; rowIndex--) {
+            if (trailMarks[rowIndex] >= 0) {
+                resetBlockInformation(rowIndex, trailMarks[rowIndex]);
+            }
+        }
+    }
+
+    /**
+     * Solves a nonogram using backtracking algorithm.
+     *
+     * @param solution Current solution
+     * @param rowIndex Row index
+     * @return Number of solutions found
+     */
+    public long solve(NonogrammSolution solution, int rowIndex) {
+        numberOfNodes++;
+        if (statistics != null) {
+            statistics.node(rowIndex);
+        }
+        if (rowIndex == constraints.getN()) {
+            // All fields set, so
+            // add solution to result set
+            numberOfSolutions++;
+            if (mode.isKeepSolutions()) {
+                sink.accept(transposed ? solution.transpose() : solution);
+            }
+            return 1;
+        } else if (prober != null && !prober.probe(solution, rowIndex)) {
+            // A cell below can have
+            // neither value
+            if (statistics != null) {
+                statistics.prune(rowIndex);
+            }
+            return 0;
+        } else {
+            // Still fields to be set
+            long numberOfSolutions = 0;
+
+            // Calculate expected row
+            long[] rowBlack = expectedBlack[rowIndex];
+            long[] rowWhite = expectedWhite[rowIndex];
+            getExpectedRow(solution, rowIndex);
+
+            // Try to find a solution for every permutation
+            // which matches the expected row
+            PermutationGenerator permutations = rowPermutations[rowIndex];
+            permutations.reset(rowBlack, rowWhite);
+            int index = skipResumed(permutations, rowIndex);
+            long[] hintRow = hintRows == null ? null : hintRows[rowIndex];
+            if (hintRow != null && !isStopped() && fits(hintRow, rowBlack, rowWhite)) {
+                // Row of the hint first
+                numberOfSolutions += setAndSolve(solution, rowIndex, hintRow);
+            }
+            while (!isStopped() && permutations.next()) {
+                cursor[rowIndex] = ++index;
+                if ((++steps & CLOCK_CHECK_MASK) == 0
+                        && (hasDeadline || progressListener != null || checkpointPath != null)) {
+                    checkClock(rowIndex);
+                }
+                if (hintRow != null && Arrays.equals(hintRow, permutations.getRow())) {
+                    // Already tried
+                    continue;
+                }
+                numberOfSolutions += setAndSolve(solution, rowIndex, permutations.getRow());
+            }
+
+            if (resumeCursor != null) {
+                // Stopped before the position
+                // resumed from was reached
+                if (!isStopped()) {
+                    throw new IllegalStateException("Checkpoint does not match the search at row " + rowIndex);
+                }
+                if (cancelled || timedOut) {
+                    stopCursor = resumeCursor;
+                }
+                resumeCursor = null;
+            }
+            if (stopCursor == null && (cancelled || timedOut) && !mode.isLimitReached(this.numberOfSolutions)) {
+                // Deepest row stopped first,
+                // rows above are done up to here
+                stopCursor = Arrays.copyOf(cursor, rowIndex + 1);
+                stopCursor[rowIndex] = index + 1;
+            }
+            return numberOfSolutions;
+        }
+    }
+
+    /**
+     * Sets a permutation of a row, solves the rows below and resets the row again.
+     *
+     * @param solution Current solution
+     * @param rowIndex Row index
+     * @param row      Permutation fitting the expected row
+     * @return Number of solutions found
+     */
+    private long setAndSolve(NonogrammSolution solution, int rowIndex, long[] row) {
+        // Backup old and set new row
+        char[] oldValues = solution.setRow(rowIndex, row, 0, rowBackups[rowIndex]);
+        int trailMark = updateBlockInformation(solution, rowIndex);
+
+        int propagationMark = propagator.getTrailSize();
+
+        // Solve next row
+        // if no constraint is violated
+        long found = solveBelow(solution, rowIndex, oldValues);
+        if (rowIndex == 0 && !isStopped()) {
+            firstRowDone++;
+        }
+        if (statistics != null) {
+            statistics.permutation(rowIndex);
+            if (found == 0) {
+                statistics.backtrack(rowIndex);
+            }
+        }
+
+        // Reset row if not successful
+        propagator.undo(solution, propagationMark);
+        resetBlockInformation(rowIndex, trailMark);
+        solution.resetRow(rowIndex, oldValues);
+        return found;
+    }
+
+    /**
+     * Checks whether a row agrees with the expected row.
+     *
+     * @param row           Row to check
+     * @param expectedBlack Cells which have to be black
+     * @param expectedWhite Cells which have to be white
+     * @return True if all expected cells have their value
+     */
+    private static boolean fits(long[] row, long[] expectedBlack, long[] expectedWhite) {
+        for (int w = 0; w < row.length; w++) {
+            if ((expectedBlack[w] & ~row[w]) != 0 || (expectedWhite[w] & row[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies a given grid into the orientation searched.
+     *
+     * @param given Grid as given to the solver
+     * @return Grid to search from
+     * @throws IllegalStateException If checkpoints are written
+     */
+    private NonogrammSolution toSearchGrid(NonogrammSolution given) {
+        if (checkpointPath != null) {
+            throw new IllegalStateException("Checkpoints only cover searches from an empty grid");
+        }
+        NonogrammSolution solution = transposed ? given.transpose() : given.copy();
+        if (solution.getN() != constraints.getN() || solution.getM() != constraints.getM()) {
+            throw new IllegalArgumentException("Grid of " + given.getM() + "x" + given.getN()
+                    + " does not fit the puzzle");
+        }
+        return solution;
+    }
+
+    /**
+     * Converts a hint to row masks, keeping only rows which fulfill their clue.
+     *
+     * @param hint Solution in the orientation searched
+     * @return Mask per row, null for rows not to try first
+     */
+    private long[][] toHintRows(NonogrammSolution hint) {
+        int n = constraints.getN();
+        int m = constraints.getM();
+        if (hint.getN() != n || hint.getM() != m) {
+            throw new IllegalArgumentException("Hint of " + hint.getM() + "x" + hint.getN()
+                    + " does not fit the puzzle");
+        }
+        long[][] rows = new long[n][];
+        for (int row = 0; row < n; row++) {
+            long[] mask = new long[constraints.getWords()];
+            int[] blocks = constraints.getRowBlocks(row);
+            int block = 0;
+            int length = 0;
+            boolean valid = true;
+            for (int col = 0; col <= m && valid; col++) {
+                char cell = col < m ? hint.get(row, col) : FIELD_WHITE;
+                if (cell == FIELD_BLACK) {
+                    RowMask.setBlack(mask, col);
+                    length++;
+                } else if (cell == FIELD_WHITE) {
+                    if (length > 0) {
+                        // Block ends, compare
+                        // with the clue
+                        valid = block < blocks.length && blocks[block++] == length;
+                        length = 0;
+                    }
+                } else {
+                    valid = false;
+                }
+            }
+            rows[row] = valid && block == blocks.length ? mask : null;
+        }
+        return rows;
+    }
+
+    /**
+     * Skips the permutations of a row done before the checkpoint resumed from.
+     *
+     * @param permutations Permutations of the row, reset
+     * @param rowIndex     Row index
+     * @return Index of the last skipped permutation, -1 if none
+     */
+    private int skipResumed(PermutationGenerator permutations, int rowIndex) {
+        if (resumeCursor == null) {
+            return -1;
+        }
+        int skipped = 0;
+        while (skipped < resumeCursor[rowIndex] && permutations.next()) {
+            skipped++;
+        }
+        if (rowIndex == resumeCursor.length - 1) {
+            // Position reached
+            resumeCursor = null;
+        }
+        return skipped - 1;
+    }
+
+    /**
+     * Propagates a set row and solves the rows below,
+     * taking the subtree from the transposition table if known.
+     *
+     * @param solution  Current solution
+     * @param rowIndex  Index of the set row
+     * @param oldValues Row before it was set
+     * @return Number of solutions found
+     */
+    private long solveBelow(NonogrammSolution solution, int rowIndex, char[] oldValues) {
+        if (transpositionTable == null || resumeCursor != null) {
+            return propagateAndSolve(solution, rowIndex, oldValues);
+        }
+
+        long cached = transpositionTable.get(rowIndex, columnIndex[rowIndex], columnCounter[rowIndex]);
+        if (cached == 0 || cached > 0 && !mode.isKeepSolutions()) {
+            // Same column state reached before
+            this.numberOfSolutions += cached;
+            return cached;
+        }
+
+        long numberOfSolutions = propagateAndSolve(solution, rowIndex, oldValues);
+        if (cached < 0 && !isStopped() && (numberOfSolutions == 0 || !mode.isKeepSolutions())) {
+            // Only whole subtrees are stored,
+            // and only dead ends if solutions are kept
+            transpositionTable.put(rowIndex, columnIndex[rowIndex], columnCounter[rowIndex], numberOfSolutions);
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Propagates a set row and solves the rows below.
+     *
+     * @param solution  Current solution
+     * @param rowIndex  Index of the set row
+     * @param oldValues Row before it was set
+     * @return Number of solutions found
+     */
+    private long propagateAndSolve(NonogrammSolution solution, int rowIndex, char[] oldValues) {
+        if (!propagateRow(solution, oldValues)) {
+            // Row contradicts the columns
+            if (statistics != null) {
+                statistics.prune(rowIndex);
+            }
+            return 0;
+        }
+        return solve(solution, rowIndex + 1);
+    }
+
+    /**
+     * Starts a flight recorder event for an instrumented solve.
+     *
+     * @return Started event, null if not instrumented
+     */
+    private SolveEvent beginSolve() {
+        if (statistics == null) {
+            return null;
+        }
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Emits events of an instrumented solve and records it in the monitor.
+     *
+     * @param event             Event started by {@link #beginSolve()}, null if not instrumented
+     * @param threads           Number of threads used
+     * @param numberOfSolutions Solutions found
+     * @param nanos             Time of the solve
+     */
+    private void endSolve(SolveEvent event, int threads, long numberOfSolutions, long nanos) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.m = constraints.getM();
+            event.n = constraints.getN();
+            event.threads = threads;
+            event.solutions = numberOfSolutions;
+            event.nodes = statistics.getTotalNodes();
+            event.prunes = statistics.getTotalPrunes();
+            event.backtracks = statistics.getTotalBacktracks();
+            event.commit();
+
+            for (int depth = 0; depth < statistics.getDepths(); depth++) {
+                DepthEvent depthEvent = new DepthEvent();
+                depthEvent.depth = depth;
+                depthEvent.nodes = statistics.getNodes(depth);
+                depthEvent.permutations = statistics.getPermutations(depth);
+                depthEvent.prunes = statistics.getPrunes(depth);
+                depthEvent.backtracks = statistics.getBacktracks(depth);
+                depthEvent.commit();
+            }
+        }
+        SolverMonitor.getInstance().record(statistics, numberOfSolutions, nanos);
+    }
+
+    /**
+     * Checks whether the deadline passed and reports progress
+     * or writes a checkpoint if due.
+     *
+     * @param rowIndex Row whose current permutation is about to be tried
+     */
+    private void checkClock(int rowIndex) {
+        long now = System.nanoTime();
+        if (hasDeadline && now - deadline >= 0) {
+            timedOut = true;
+        }
+        if (progressListener != null && now - nextProgress >= 0) {
+            nextProgress = now + progressInterval;
+            progressListener.progress(numberOfSolutions, numberOfNodes, getExplored());
+        }
+        if (checkpointPath != null && now - nextCheckpoint >= 0) {
+            writeCheckpoint(Arrays.copyOf(cursor, rowIndex + 1));
+            nextCheckpoint = System.nanoTime() + checkpointInterval;
+        }
+    }
+
+    /**
+     * Stores solutions found so far and writes the position of the search.
+     *
+     * @param position Permutation index per row, see {@link Checkpoint}
+     */
+    private void writeCheckpoint(int[] position) {
+        long startTime = System.nanoTime();
+        try {
+            sink.flush();
+            new Checkpoint(puzzleFingerprint, transposed, probeBudget, mode, checkpointFormat, position,
+                    numberOfSolutions, numberOfNodes).write(checkpointPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkpoints++;
+        checkpointNanos += System.nanoTime() - startTime;
+    }
+
+    /**
+     * Writes the last checkpoint of a stopped search,
+     * or deletes the checkpoint of a complete one.
+     */
+    private void finishCheckpoints() {
+        if (checkpointPath == null) {
+            return;
+        }
+        if (stopCursor != null) {
+            writeCheckpoint(stopCursor);
+            return;
+        }
+        try {
+            Files.deleteIfExists(checkpointPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks whether the search has to stop.
+     *
+     * @return True if cancelled, timed out or enough solutions found
+     */
+    private boolean isStopped() {
+        return cancelled || timedOut || mode.isLimitReached(numberOfSolutions);
+    }
+
+    /**
+     * Propagates the cells of a newly set row to their columns.
+     *
+     * @param solution  Current solution
+     * @param oldValues Fields of the row before it was set
+     * @return False if a constraint is violated
+     */
+    private boolean propagateRow(NonogrammSolution solution, char[] oldValues) {
+        for (int i = 0; i < constraints.getM(); i++) {
+            if (oldValues[i] == FIELD_UNKNOWN) {
+                propagator.markColumnDirty(i);
+            }
+        }
+        return propagator.propagate(solution);
+    }
+
+    /**
+     * Calculates which cells of a row are already determined by the
+     * column blocks of the rows above and by propagation.
+     *
+     * @param solution Current solution
+     * @param rowIndex Row index
+     */
+    void getExpectedRow(NonogrammSolution solution, int rowIndex) {
+        // Start with cells forced
+        // by the column blocks
+        long[] rowBlack = expectedBlack[rowIndex];
+        long[] rowWhite = expectedWhite[rowIndex];
+        System.arraycopy(blockBlack[rowIndex], 0, rowBlack, 0, rowBlack.length);
+        System.arraycopy(blockWhite[rowIndex], 0, rowWhite, 0, rowWhite.length);
+
+        // Take cells already known
+        for (int i = 0; i < constraints.getM(); i++) {
+            char cell = solution.get(rowIndex, i);
+            if (cell == FIELD_BLACK) {
+                RowMask.setBlack(rowBlack, i);
+            } else if (cell == FIELD_WHITE) {
+                RowMask.setBlack(rowWhite, i);
+            }
+        }
+    }
+
+    /**
+     * Calculates which cells of the row below a row are forced by the
+     * column blocks, for all columns.
+     *
+     * @param rowIndex Row whose block information is used
+     */
+    private void updateBlockMasks(int rowIndex) {
+        for (int i = 0; i < constraints.getM(); i++) {
+            updateBlockMask(rowIndex, i);
+        }
+    }
+
+    /**
+     * Calculates whether the cell of a column in the row below a row is
+     * forced by the column blocks.
+     *
+     * @param rowIndex Row whose block information is used
+     * @param colIndex Column index
+     */
+    private void updateBlockMask(int rowIndex, int colIndex) {
+        int nextRow = rowIndex + 1;
+        if (nextRow == constraints.getN()) {
+            // No row below
+            return;
+        }
+        long[] rowBlack = blockBlack[nextRow];
+        long[] rowWhite = blockWhite[nextRow];
+        RowMask.clear(rowBlack, colIndex);
+        RowMask.clear(rowWhite, colIndex);
+
+        int[] blocks = constraints.getColumnBlocks(colIndex);
+        int curColumnIndex = columnIndex[rowIndex][colIndex];
+        int curColumnCounter = columnCounter[rowIndex][colIndex];
+        if (curColumnIndex == blocks.length) {
+            // Field has to be empty as all black cells
+            // already set
+            RowMask.setBlack(rowWhite, colIndex);
+        } else if (curColumnCounter > 0) {
+            // Cell in previous row was set
+            if (blocks[curColumnIndex] > curColumnCounter) {
+                // Still cells in block left
+                RowMask.setBlack(rowBlack, colIndex);
+            } else {
+                // All cells of available blocks already set
+                RowMask.setBlack(rowWhite, colIndex);
+            }
+        } else if (constraints.getN() - nextRow <= constraints.getColumnMinLengths(colIndex)[curColumnIndex]) {
+            // Cell has to be set to be able
+            // to fullfill column constraint until last row
+            RowMask.setBlack(rowBlack, colIndex);
+        }
+        // Cell in previous row was not set,
+        // Could be set now or left empty otherwise
+    }
+
+    /**
+     * Updates the information for block size index and counter of all colums.
+     * <p>
+     * Every overwritten value is recorded on the trail, so the update can be
+     * undone with {@link #resetBlockInformation(int, int)}.
+     * Cells the column blocks force in the next row are updated for every
+     * changed column, so the expected row costs no work per column state.
+     *
+     * @param solution Current solution
+     * @param rowIndex Current row
+     * @return Trail position before update
+     */
+    int updateBlockInformation(NonogrammSolution solution, int rowIndex) {
+        // Remember position for reset
+        int trailMark = trailSize;
+
+        // Update values
+        for (int i = 0; i < constraints.getM(); i++) {
+            // Copy state from previous row
+            int counter = rowIndex == 0 ? 0 : columnCounter[rowIndex - 1][i];
+            int index = rowIndex == 0 ? 0 : columnIndex[rowIndex - 1][i];
+
+            if (solution.get(rowIndex, i) == FIELD_WHITE) {
+                if (counter != 0) {
+                    // Bit was set in previous row, but not in actual,
+                    // move index to next block
+                    counter = 0;
+                    index++;
+                }
+            } else
+                // Bit has to be set,
+                // increase block counter
+                counter++;
+
+            if (columnIndex[rowIndex][i] != index || columnCounter[rowIndex][i] != counter) {
+                // Save old values for reset
+                trail[trailSize++] = i;
+                trail[trailSize++] = columnIndex[rowIndex][i];
+                trail[trailSize++] = columnCounter[rowIndex][i];
+                columnIndex[rowIndex][i] = index;
+                columnCounter[rowIndex][i] = counter;
+                updateBlockMask(rowIndex, i);
+            }
+        }
+
+        return trailMark;
+    }
+
+    /**
+     * Set block information to an earlier stage.
+     *
+     * @param rowIndex  Row the update was made for
+     * @param trailMark Trail position returned by the update to undo
+     */
+    void resetBlockInformation(int rowIndex, int trailMark) {
+        // Restore values in reverse order
+        // of their update
+        while (trailSize > trailMark) {
+            int oldCounter = trail[--trailSize];
+            int oldIndex = trail[--trailSize];
+            int column = trail[--trailSize];
+            columnIndex[rowIndex][column] = oldIndex;
+            columnCounter[rowIndex][column] = oldCounter;
+            updateBlockMask(rowIndex, column);
+        }
+    }
+
+    /**
+     * Solution of a nonogram.
+     */
+    public static class NonogrammSolution {
+        // n x m matrix
+        private char nonogramm[][];
+
+        public NonogrammSolution(int n, int m) {
+            nonogramm = new char[n][m];
+
+            // Initialize matrix
+            for (int i = 0; i < nonogramm.length; i++) {
+                for (int j = 0; j < nonogramm[i].length; j++) {
+                    nonogramm[i][j] = FIELD_UNKNOWN;
+                }
+            }
+        }
+
+        // Getter & Setter
+        public int getN() {
+            return nonogramm.length;
+        }
+
+        public int getM() {
+            return nonogramm[0].length;
+        }
+
+        public char get(int rowIndex, int colIndex) {
+            return nonogramm[rowIndex][colIndex];
+        }
+
+        public void set(int rowIndex, int colIndex, char value) {
+            nonogramm[rowIndex][colIndex] = value;
+        }
+
+        /**
+         * Clears specific row.
+         *
+         * @param rowIndex Row index
+         */
+        public void resetRow(int rowIndex, char[] oldValues) {
+            // Reset row
+            for (int i = 0; i < nonogramm[rowIndex].length; i++) {
+                nonogramm[rowIndex][i] = oldValues[i];
+            }
+        }
+
+        /**
+         * Gets filled in fields of row by index.
+         *
+         * @param rowIndex Row index
+         * @return Known fields of row
+         */
+        public String getRow(int rowIndex) {
+            char[] row = nonogramm[rowIndex];
+
+            StringBuilder sb = new StringBuilder();
+            for (char cell : row) {
+                if (cell != FIELD_UNKNOWN)
+                    sb.append(cell);
+            }
+
+            return sb.toString();
+        }
+
+        /**
+         * Sets values for specified row and return old row values.
+         *
+         * @param rowIndex Row index
+         * @param row Mask containing the row to set
+         * @param offset Index of first word of the row in mask
+         * @param oldValues Buffer the old fields are copied to
+         * @return Old fields of row
+         */
+        public char[] setRow(int rowIndex, long[] row, int offset, char[] oldValues) {
+            // Set row
+            for (int i = 0; i < nonogramm[rowIndex].length; i++) {
+                oldValues[i] = nonogramm[rowIndex][i];
+                nonogramm[rowIndex][i] = RowMask.isBlack(row, offset, i) ? FIELD_BLACK : FIELD_WHITE;
+            }
+
+            return oldValues;
+        }
+
+        /**
+         * Creates a copy of the current solution.
+         *
+         * @return Copied instance of solution
+         */
+        public NonogrammSolution copy() {
+            NonogrammSolution copy = new NonogrammSolution(nonogramm.length, nonogramm[0].length);
+
+            for (int row = 0; row < nonogramm.length; row++) {
+                for (int col = 0; col < nonogramm[row].length; col++) {
+                    copy.set(row, col, this.get(row, col));
+                }
+            }
+
+            return copy;
+        }
+
+        /**
+         * Creates a copy mirrored at the diagonal.
+         *
+         * @return Solution with rows and columns swapped
+         */
+        public NonogrammSolution transpose() {
+            NonogrammSolution transposed = new NonogrammSolution(nonogramm[0].length, nonogramm.length);
+
+            for (int row = 0; row < nonogramm.length; row++) {
+                for (int col = 0; col < nonogramm[row].length; col++) {
+                    transposed.set(col, row, this.get(row, col));
+                }
+            }
+
+            return transposed;
+        }
+
+        /**
+         * Converts matrix to output string.
+         *
+         * @return Matrix as output line
+         */
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < nonogramm.length; i++) {
+                for (int j = 0; j < nonogramm[i].length ; j++) {
+                    sb.append(nonogramm[i][j]);
+                }
+            }
+            return sb.toString();
+        }
+
+    }
+
+    /**
+     * Solves the subtree below some already set rows.
+     */
+    static class SearchTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final NonogramSolver solver;
+        private final NonogrammSolution solution;
+        private final int rowIndex;
+
+        // Block information of the last set row
+        private final int[] columnIndex;
+        private final int[] columnCounter;
+
+        public SearchTask(NonogramSolver solver, NonogrammSolution solution, int rowIndex,
+                          int[] columnIndex, int[] columnCounter) {
+            this.solver = solver;
+            this.solution = solution;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.columnCounter = columnCounter;
+        }
+
+        @Override
+        protected Long compute() {
+            // Take over block information
+            // of the rows above
+            if (rowIndex > 0) {
+                solver.columnIndex[rowIndex - 1] = columnIndex;
+                solver.columnCounter[rowIndex - 1] = columnCounter;
+                solver.updateBlockMasks(rowIndex - 1);
+            }
+            return solver.solve(solution, rowIndex);
+        }
+    }
+}
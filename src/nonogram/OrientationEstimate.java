@@ -0,0 +1,145 @@
+package nonogram;
+
+import java.util.Random;
+
+/**
+ * Estimates whether branching over rows or over columns is cheaper.
+ * <p>
+ * The solver tries the permutations of one row after the other, so the size
+ * of its search tree depends on the orientation. The size is estimated by
+ * random probes as proposed by Knuth: a probe sets one random permutation per
+ * row, propagates, and multiplies the numbers of permutations which fitted on
+ * its way down. The sum of these products is an unbiased estimate of the
+ * number of nodes. Probes on the transposed nonogram estimate branching over
+ * columns. Probes use a fixed seed, so the choice is the same on every run.
+ */
+public final class OrientationEstimate {
+    /** Default number of probes per orientation */
+    public static final int DEFAULT_PROBES = 32;
+
+    private final double rowCost;
+    private final double columnCost;
+
+    private OrientationEstimate(double rowCost, double columnCost) {
+        this.rowCost = rowCost;
+        this.columnCost = columnCost;
+    }
+
+    /**
+     * Estimates both orientations with the default number of probes.
+     *
+     * @param constraints Constraints of the nonogram
+     * @return Estimate of both orientations
+     */
+    public static OrientationEstimate of(NonogramConstraints constraints) {
+        return of(constraints, DEFAULT_PROBES);
+    }
+
+    /**
+     * Estimates both orientations.
+     *
+     * @param constraints Constraints of the nonogram
+     * @param probes      Probes per orientation, more give a more stable estimate
+     * @return Estimate of both orientations
+     */
+    public static OrientationEstimate of(NonogramConstraints constraints, int probes) {
+        return new OrientationEstimate(estimate(constraints, probes, new Random(0)),
+                estimate(constraints.transpose(), probes, new Random(0)));
+    }
+
+    /**
+     * Gets the search tree size when branching over rows.
+     *
+     * @return Decimal logarithm of the estimated number of nodes
+     */
+    public double getRowCost() {
+        return rowCost;
+    }
+
+    /**
+     * Gets the search tree size when branching over columns.
+     *
+     * @return Decimal logarithm of the estimated number of nodes
+     */
+    public double getColumnCost() {
+        return columnCost;
+    }
+
+    /**
+     * Tells whether the transposed nonogram should be solved.
+     *
+     * @return True if branching over columns is estimated to visit fewer nodes
+     */
+    public boolean isColumnsCheaper() {
+        return columnCost < rowCost;
+    }
+
+    /**
+     * Converts estimate to a report line.
+     *
+     * @return Both tree sizes
+     */
+    public String toString() {
+        return String.format("rows 10^%.1f, columns 10^%.1f nodes", rowCost, columnCost);
+    }
+
+    /**
+     * Estimates the search tree size when branching over rows.
+     *
+     * @param constraints Constraints of the nonogram
+     * @param probes      Number of probes
+     * @param random      Source of randomness
+     * @return Decimal logarithm of the estimated number of nodes, 0 without solution
+     */
+    private static double estimate(NonogramConstraints constraints, int probes, Random random) {
+        int n = constraints.getN();
+        int m = constraints.getM();
+        NonogramSolver.NonogrammSolution solution = new NonogramSolver.NonogrammSolution(n, m);
+        LinePropagator propagator = new LinePropagator(constraints);
+        propagator.markAllDirty();
+        if (!propagator.propagate(solution)) {
+            return 0;
+        }
+        int rootMark = propagator.getTrailSize();
+
+        int maxBlocks = 0;
+        for (int row = 0; row < n; row++) {
+            maxBlocks = Math.max(maxBlocks, constraints.getRowBlocks(row).length);
+        }
+        LineSolver lineSolver = new LineSolver(m, maxBlocks);
+        char[] line = new char[m];
+
+        double nodes = 0;
+        for (int probe = 0; probe < probes; probe++) {
+            // Root plus one node per
+            // permutation on every level
+            double width = 1;
+            double size = 1;
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < m; col++) {
+                    line[col] = solution.get(row, col);
+                }
+                double count = lineSolver.count(constraints.getRowBlocks(row), line, m);
+                if (count == 0) {
+                    break;
+                }
+                width *= count;
+                size += width;
+
+                // Go down a random permutation
+                lineSolver.sample(constraints.getRowBlocks(row), line, m, random);
+                for (int col = 0; col < m; col++) {
+                    if (solution.get(row, col) == NonogramSolver.FIELD_UNKNOWN) {
+                        propagator.assign(solution, row, col, line[col]);
+                    }
+                }
+                if (!propagator.propagate(solution)) {
+                    break;
+                }
+            }
+            nodes += size;
+            propagator.undo(solution, rootMark);
+        }
+        return Math.log10(nodes / probes);
+    }
+}
@@ -0,0 +1,194 @@
+package nonogram;
+
+/**
+ * Generates the permutations of a row one after another.
+ * <p>
+ * Blocks are placed from left to right and only placements which fit the
+ * expected row are walked, so permutations ruled out by the column state are
+ * never built. Permutations are generated in the same order as the blocks
+ * would be shifted by hand: first block leftmost first, last block moving
+ * fastest. The generator is reused for every visit of its row and does not
+ * allocate while generating.
+ */
+public final class PermutationGenerator {
+    // Row constraint
+    private final int[] blocks;
+    private final int length;
+
+    // Minimal number of cells needed
+    // from a block to the end of the row
+    private final int[] minCellsNeeded;
+
+    // Current placement
+    private final int[] start;
+    private final long[] row;
+    private boolean started;
+
+    // Expected row
+    private long[] expectedBlack;
+    private long[] expectedWhite;
+    private int lastBlack;
+
+    /**
+     * Creates a generator for a row.
+     *
+     * @param blocks Block lengths of the row
+     * @param length Length of the row
+     */
+    public PermutationGenerator(int[] blocks, int length) {
+        this.blocks = blocks;
+        this.length = length;
+        this.start = new int[blocks.length];
+        this.row = new long[RowMask.words(length)];
+
+        // Sum up remaining block sizes,
+        // with one space between blocks
+        this.minCellsNeeded = new int[blocks.length];
+        int remainingCells = -1;
+        for (int i = blocks.length - 1; i >= 0; i--) {
+            remainingCells += blocks[i] + 1;
+            minCellsNeeded[i] = remainingCells;
+        }
+    }
+
+    /**
+     * Starts a new generation.
+     *
+     * @param expectedBlack Cells which have to be black
+     * @param expectedWhite Cells which have to be white
+     */
+    public void reset(long[] expectedBlack, long[] expectedWhite) {
+        this.expectedBlack = expectedBlack;
+        this.expectedWhite = expectedWhite;
+
+        // Find last cell which has to be black
+        lastBlack = -1;
+        for (int w = expectedBlack.length - 1; w >= 0 && lastBlack < 0; w--) {
+            if (expectedBlack[w] != 0) {
+                lastBlack = (w << 6) + 63 - Long.numberOfLeadingZeros(expectedBlack[w]);
+            }
+        }
+
+        // Nothing placed yet
+        started = false;
+    }
+
+    /**
+     * Moves to the next permutation which fits the expected row.
+     *
+     * @return True if a permutation was found, false if all are used up
+     */
+    public boolean next() {
+        int k;
+        if (!started) {
+            // First call, start with first block
+            started = true;
+            if (blocks.length == 0) {
+                // Only an empty row is possible
+                return buildRow();
+            }
+            k = 0;
+            start[0] = -1;
+        } else if (blocks.length == 0) {
+            return false;
+        } else {
+            // Shift last block
+            k = blocks.length - 1;
+        }
+
+        while (k >= 0) {
+            if (place(k)) {
+                if (k == blocks.length - 1) {
+                    return buildRow();
+                }
+                // Continue with next block
+                k++;
+                start[k] = -1;
+            } else {
+                // Shift previous block
+                k--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the current permutation.
+     *
+     * @return Current permutation as bit mask, only valid until the next call of {@link #next()}
+     */
+    public long[] getRow() {
+        return row;
+    }
+
+    /**
+     * Moves a block to its next possible position.
+     *
+     * @param k Block index
+     * @return True if block could be placed
+     */
+    private boolean place(int k) {
+        // Leftmost possible position right after previous block
+        int first = k == 0 ? 0 : start[k - 1] + blocks[k - 1] + 1;
+        int last = length - minCellsNeeded[k];
+
+        int p = start[k] < 0 ? first : start[k] + 1;
+        for (; p <= last; p++) {
+            if (p > first && isSet(expectedBlack, p - 1)) {
+                // Black cell would be left uncovered
+                return false;
+            }
+            if (fits(k, p)) {
+                start[k] = p;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a block can be placed at a position.
+     *
+     * @param k Block index
+     * @param p Start position
+     * @return True if block fits the expected row
+     */
+    private boolean fits(int k, int p) {
+        int end = p + blocks[k];
+        for (int i = p; i < end; i++) {
+            if (isSet(expectedWhite, i)) {
+                return false;
+            }
+        }
+        if (k == blocks.length - 1) {
+            // Rest of the row stays empty
+            return lastBlack < end;
+        }
+        // Cell after the block stays empty
+        return !isSet(expectedBlack, end);
+    }
+
+    /**
+     * Builds the bit mask of the current placement.
+     *
+     * @return True if the mask fits the expected row
+     */
+    private boolean buildRow() {
+        if (blocks.length == 0 && lastBlack >= 0) {
+            return false;
+        }
+        for (int w = 0; w < row.length; w++) {
+            row[w] = 0;
+        }
+        for (int k = 0; k < blocks.length; k++) {
+            for (int i = start[k]; i < start[k] + blocks[k]; i++) {
+                RowMask.setBlack(row, i);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSet(long[] mask, int index) {
+        return RowMask.isBlack(mask, 0, index);
+    }
+}
@@ -0,0 +1,17 @@
+package nonogram;
+
+/**
+ * Receives progress of a running search.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Reports progress, called on the searching thread.
+     *
+     * @param numberOfSolutions Solutions found so far
+     * @param numberOfNodes     Nodes visited so far
+     * @param explored          Share of the first row permutations done, between 0 and 1
+     */
+    void progress(long numberOfSolutions, long numberOfNodes, double explored);
+}
@@ -0,0 +1,57 @@
+package nonogram;
+
+/**
+ * Helpers for rows packed into bit masks.
+ * <p>
+ * A row of length m is stored in {@link #words(int)} consecutive longs, bit
+ * {@code i % 64} of word {@code i / 64} is set if cell i is black. Rows up to
+ * 64 cells therefore take a single long.
+ */
+public final class RowMask {
+
+    private RowMask() {
+    }
+
+    /**
+     * Calculates number of words needed to store a row.
+     *
+     * @param length Length of row
+     * @return Number of longs per row
+     */
+    public static int words(int length) {
+        return (length + 63) >>> 6;
+    }
+
+    /**
+     * Checks whether cell of a row is black.
+     *
+     * @param mask   Mask containing the row
+     * @param offset Index of first word of the row in mask
+     * @param index  Cell index
+     * @return True if cell is black
+     */
+    public static boolean isBlack(long[] mask, int offset, int index) {
+        return (mask[offset + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets cell of a row to black.
+     *
+     * @param mask  Mask containing the row
+     * @param index Cell index
+     */
+    public static void setBlack(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears the bit of a cell. Masks of white or
+     * candidate cells use the bits as well.
+     *
+     * @param mask  Mask containing the row
+     * @param index Cell index
+     */
+    public static void clear(long[] mask, int index) {
+        mask[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,283 @@
+package nonogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a nonogram by encoding it as clauses for the {@link CdclSolver}.
+ * <p>
+ * Every cell is a variable. Every block of a row or column gets one
+ * variable per possible start position, exactly one of which is true. A
+ * start implies its cells black and the cells around it white, the start of
+ * the next block lies behind it, and a black cell is covered by some block.
+ * Found solutions are blocked by a clause over all cells, so further calls
+ * of the solver enumerate the remaining solutions. Solutions are the same as
+ * found by {@link NonogramSolver}, but come in a different order. Usually
+ * run through {@link NonogramSolver#setEngine(NonogramSolver.Engine)}.
+ */
+public final class SatSearch {
+    private final NonogramConstraints constraints;
+    private final SolutionMode mode;
+    private final CdclSolver solver = new CdclSolver();
+
+    // Variable of every cell
+    private final int[][] cells;
+
+    // Calculated solutions
+    private final List<NonogramSolver.NonogrammSolution> solutions = new ArrayList<>();
+    private SolutionSink sink = solution -> solutions.add(solution.copy());
+    private long numberOfSolutions;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a search and encodes the nonogram.
+     *
+     * @param constraints Constraints of the nonogram to solve
+     * @param mode        Defines how many solutions are searched
+     */
+    public SatSearch(NonogramConstraints constraints, SolutionMode mode) {
+        this.constraints = constraints;
+        this.mode = mode;
+
+        int n = constraints.getN();
+        int m = constraints.getM();
+        this.cells = new int[n][m];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < m; col++) {
+                cells[row][col] = solver.newVariable();
+            }
+        }
+
+        int[] line = new int[Math.max(n, m)];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < m; col++) {
+                line[col] = cells[row][col];
+            }
+            encodeLine(constraints.getRowBlocks(row), line, m);
+        }
+        for (int col = 0; col < m; col++) {
+            for (int row = 0; row < n; row++) {
+                line[row] = cells[row][col];
+            }
+            encodeLine(constraints.getColumnBlocks(col), line, n);
+        }
+    }
+
+    /**
+     * Sets where found solutions go to.
+     *
+     * @param sink Receiver of solutions
+     */
+    public void setSolutionSink(SolutionSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Keeps the known cells of a grid, so only solutions
+     * agreeing with them are found. Has to be called before solving.
+     *
+     * @param given Grid with some cells black or white, unknown cells are searched
+     */
+    public void setGiven(NonogramSolver.NonogrammSolution given) {
+        if (given.getN() != constraints.getN() || given.getM() != constraints.getM()) {
+            throw new IllegalArgumentException("Grid of " + given.getM() + "x" + given.getN()
+                    + " does not fit the puzzle");
+        }
+        for (int row = 0; row < constraints.getN(); row++) {
+            for (int col = 0; col < constraints.getM(); col++) {
+                char value = given.get(row, col);
+                if (value != NonogramSolver.FIELD_UNKNOWN) {
+                    solver.addClause(CdclSolver.literal(cells[row][col], value == NonogramSolver.FIELD_BLACK));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets solutions found so far.
+     *
+     * @return Calculated solutions, empty if a sink is set
+     */
+    public List<NonogramSolver.NonogrammSolution> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets the underlying SAT solver, e.g. for its statistics.
+     *
+     * @return Solver
+     */
+    public CdclSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * Stops the search as soon as possible.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        solver.cancel();
+    }
+
+    /**
+     * Enumerates solutions until all are found or the limit is reached.
+     *
+     * @return Number of solutions found
+     */
+    public long solve() {
+        int n = constraints.getN();
+        int m = constraints.getM();
+        NonogramSolver.NonogrammSolution solution = new NonogramSolver.NonogrammSolution(n, m);
+        int[] blocking = new int[n * m];
+
+        while (!cancelled && !mode.isLimitReached(numberOfSolutions)
+                && solver.solve() == CdclSolver.Result.SATISFIABLE) {
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < m; col++) {
+                    boolean black = solver.isTrue(cells[row][col]);
+                    solution.set(row, col, black ? NonogramSolver.FIELD_BLACK : NonogramSolver.FIELD_WHITE);
+                    blocking[row * m + col] = CdclSolver.literal(cells[row][col], !black);
+                }
+            }
+            numberOfSolutions++;
+            if (mode.isKeepSolutions()) {
+                sink.accept(solution);
+            }
+
+            // Exclude this solution
+            // from the next search
+            solver.addClause(blocking);
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Enumerates solutions until all are found, the limit is reached or a deadline passes.
+     * <p>
+     * Unlike backtracking, the search has no first row to tell how far it got,
+     * so a stopped search reports nothing explored.
+     *
+     * @param timeout Maximal time of the search
+     * @param unit    Unit of timeout
+     * @return How the search ended and what was found
+     */
+    public SolveOutcome solve(long timeout, TimeUnit unit) {
+        long startTime = System.nanoTime();
+        solver.setDeadline(startTime + unit.toNanos(timeout));
+        long found = solve();
+        long nanos = System.nanoTime() - startTime;
+
+        SolveOutcome.Status status;
+        if (mode.isLimitReached(found)) {
+            status = SolveOutcome.Status.SOLVED;
+        } else if (cancelled) {
+            status = SolveOutcome.Status.CANCELLED;
+        } else if (solver.isTimedOut()) {
+            status = SolveOutcome.Status.TIMED_OUT;
+        } else {
+            status = found > 0 ? SolveOutcome.Status.SOLVED : SolveOutcome.Status.UNSAT;
+        }
+        boolean complete = status == SolveOutcome.Status.SOLVED || status == SolveOutcome.Status.UNSAT;
+        return new SolveOutcome(status, found, solver.getDecisions(), complete ? 1 : 0, nanos);
+    }
+
+    /**
+     * Adds clauses of a row or column.
+     *
+     * @param blocks Block lengths of the line
+     * @param line   Variables of the cells
+     * @param length Length of the line
+     */
+    private void encodeLine(int[] blocks, int[] line, int length) {
+        int k = blocks.length;
+        if (k == 0) {
+            // All cells white
+            for (int i = 0; i < length; i++) {
+                solver.addClause(CdclSolver.literal(line[i], false));
+            }
+            return;
+        }
+
+        // Range of start positions per block
+        int[] first = new int[k];
+        int[] last = new int[k];
+        int position = 0;
+        for (int j = 0; j < k; j++) {
+            first[j] = position;
+            position += blocks[j] + 1;
+        }
+        position = length;
+        for (int j = k - 1; j >= 0; j--) {
+            last[j] = position - blocks[j];
+            position -= blocks[j] + 1;
+        }
+        if (last[0] < first[0]) {
+            // Blocks do not fit
+            solver.addClause();
+            return;
+        }
+
+        // Start variables
+        int[][] starts = new int[k][];
+        for (int j = 0; j < k; j++) {
+            starts[j] = new int[last[j] - first[j] + 1];
+            for (int p = 0; p < starts[j].length; p++) {
+                starts[j][p] = solver.newVariable();
+            }
+        }
+
+        for (int j = 0; j < k; j++) {
+            // Exactly one start per block
+            int[] atLeastOne = new int[starts[j].length];
+            for (int p = 0; p < starts[j].length; p++) {
+                atLeastOne[p] = CdclSolver.literal(starts[j][p], true);
+                for (int q = p + 1; q < starts[j].length; q++) {
+                    solver.addClause(CdclSolver.literal(starts[j][p], false),
+                            CdclSolver.literal(starts[j][q], false));
+                }
+            }
+            solver.addClause(atLeastOne);
+
+            for (int p = first[j]; p <= last[j]; p++) {
+                int start = starts[j][p - first[j]];
+
+                // Cells of block black,
+                // cells around it white
+                for (int i = p; i < p + blocks[j]; i++) {
+                    solver.addClause(CdclSolver.literal(start, false), CdclSolver.literal(line[i], true));
+                }
+                if (p > 0) {
+                    solver.addClause(CdclSolver.literal(start, false), CdclSolver.literal(line[p - 1], false));
+                }
+                if (p + blocks[j] < length) {
+                    solver.addClause(CdclSolver.literal(start, false),
+                            CdclSolver.literal(line[p + blocks[j]], false));
+                }
+
+                // Next block starts behind this one
+                if (j + 1 < k) {
+                    List<Integer> next = new ArrayList<>();
+                    next.add(CdclSolver.literal(start, false));
+                    for (int q = Math.max(p + blocks[j] + 1, first[j + 1]); q <= last[j + 1]; q++) {
+                        next.add(CdclSolver.literal(starts[j + 1][q - first[j + 1]], true));
+                    }
+                    solver.addClause(next.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+        }
+
+        // Black cell covered by a block
+        for (int i = 0; i < length; i++) {
+            List<Integer> covering = new ArrayList<>();
+            covering.add(CdclSolver.literal(line[i], false));
+            for (int j = 0; j < k; j++) {
+                for (int p = Math.max(first[j], i - blocks[j] + 1); p <= Math.min(last[j], i); p++) {
+                    covering.add(CdclSolver.literal(starts[j][p - first[j]], true));
+                }
+            }
+            solver.addClause(covering.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
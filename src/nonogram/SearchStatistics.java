@@ -0,0 +1,167 @@
+package nonogram;
+
+/**
+ * Counters of a search per row depth.
+ * <p>
+ * A solver only counts if statistics are set, see
+ * {@link NonogramSolver#setStatistics(SearchStatistics)}, otherwise the
+ * search pays a single null check per node. Counters are not thread safe,
+ * every solver gets its own statistics which are added up afterwards.
+ */
+public final class SearchStatistics {
+    // Calls of the backtracking step
+    private final long[] nodes;
+
+    // Permutations of the row tried
+    private final long[] permutations;
+
+    // Permutations rejected by propagation
+    private final long[] prunes;
+
+    // Permutations whose subtree had no solution,
+    // including the pruned ones
+    private final long[] backtracks;
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param depths Number of rows plus one for the leaves
+     */
+    public SearchStatistics(int depths) {
+        this.nodes = new long[depths];
+        this.permutations = new long[depths];
+        this.prunes = new long[depths];
+        this.backtracks = new long[depths];
+    }
+
+    void node(int depth) {
+        nodes[depth]++;
+    }
+
+    void permutation(int depth) {
+        permutations[depth]++;
+    }
+
+    void prune(int depth) {
+        prunes[depth]++;
+    }
+
+    void backtrack(int depth) {
+        backtracks[depth]++;
+    }
+
+    /**
+     * Adds counters of another search of the same nonogram.
+     *
+     * @param other Statistics to add
+     */
+    public void add(SearchStatistics other) {
+        for (int depth = 0; depth < nodes.length; depth++) {
+            nodes[depth] += other.nodes[depth];
+            permutations[depth] += other.permutations[depth];
+            prunes[depth] += other.prunes[depth];
+            backtracks[depth] += other.backtracks[depth];
+        }
+    }
+
+    /**
+     * Gets number of depths.
+     *
+     * @return Number of rows plus one
+     */
+    public int getDepths() {
+        return nodes.length;
+    }
+
+    /**
+     * Gets nodes visited at a depth.
+     *
+     * @param depth Row index
+     * @return Number of nodes
+     */
+    public long getNodes(int depth) {
+        return nodes[depth];
+    }
+
+    /**
+     * Gets permutations tried at a depth.
+     *
+     * @param depth Row index
+     * @return Number of permutations matching the expected row
+     */
+    public long getPermutations(int depth) {
+        return permutations[depth];
+    }
+
+    /**
+     * Gets permutations rejected by propagation at a depth.
+     *
+     * @param depth Row index
+     * @return Number of pruned permutations
+     */
+    public long getPrunes(int depth) {
+        return prunes[depth];
+    }
+
+    /**
+     * Gets permutations without solution at a depth.
+     *
+     * @param depth Row index
+     * @return Number of backtracks
+     */
+    public long getBacktracks(int depth) {
+        return backtracks[depth];
+    }
+
+    /**
+     * Gets nodes of all depths.
+     *
+     * @return Number of nodes
+     */
+    public long getTotalNodes() {
+        return sum(nodes);
+    }
+
+    /**
+     * Gets pruned permutations of all depths.
+     *
+     * @return Number of prunes
+     */
+    public long getTotalPrunes() {
+        return sum(prunes);
+    }
+
+    /**
+     * Gets backtracks of all depths.
+     *
+     * @return Number of backtracks
+     */
+    public long getTotalBacktracks() {
+        return sum(backtracks);
+    }
+
+    /**
+     * Converts counters to a table with one line per depth.
+     *
+     * @return Table of counters
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%5s %12s %12s %12s %12s%n",
+                "depth", "nodes", "permutations", "prunes", "backtracks"));
+        for (int depth = 0; depth < nodes.length; depth++) {
+            if (nodes[depth] > 0) {
+                sb.append(String.format("%5d %12d %12d %12d %12d%n",
+                        depth, nodes[depth], permutations[depth], prunes[depth], backtracks[depth]));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long sum(long[] counters) {
+        long sum = 0;
+        for (long counter : counters) {
+            sum += counter;
+        }
+        return sum;
+    }
+}
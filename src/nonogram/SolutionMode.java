@@ -0,0 +1,150 @@
+package nonogram;
+
+/**
+ * Defines how many solutions are searched and whether they are kept.
+ * <p>
+ * The search stops as soon as the limit of solutions is reached, so asking
+ * for the first solution or for uniqueness does not explore the whole tree.
+ */
+public final class SolutionMode {
+    private static final SolutionMode ALL = new SolutionMode(Long.MAX_VALUE, true);
+    private static final SolutionMode FIRST = new SolutionMode(1, true);
+    private static final SolutionMode UNIQUE = new SolutionMode(2, true);
+    private static final SolutionMode COUNT = new SolutionMode(Long.MAX_VALUE, false);
+
+    private final long limit;
+    private final boolean keepSolutions;
+
+    private SolutionMode(long limit, boolean keepSolutions) {
+        this.limit = limit;
+        this.keepSolutions = keepSolutions;
+    }
+
+    /**
+     * Finds and keeps all solutions.
+     *
+     * @return Mode
+     */
+    public static SolutionMode all() {
+        return ALL;
+    }
+
+    /**
+     * Stops at the first solution.
+     *
+     * @return Mode
+     */
+    public static SolutionMode first() {
+        return FIRST;
+    }
+
+    /**
+     * Stops at the second solution, enough to tell whether the solution is unique.
+     *
+     * @return Mode
+     */
+    public static SolutionMode unique() {
+        return UNIQUE;
+    }
+
+    /**
+     * Counts all solutions without keeping them.
+     *
+     * @return Mode
+     */
+    public static SolutionMode count() {
+        return COUNT;
+    }
+
+    /**
+     * Stops after a number of solutions.
+     *
+     * @param limit Maximal number of solutions
+     * @return Mode
+     */
+    public static SolutionMode limit(long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit has to be positive: " + limit);
+        }
+        return new SolutionMode(limit, true);
+    }
+
+    /**
+     * Parses a mode from its name.
+     *
+     * @param name One of all, first, unique, count or a limit of solutions
+     * @return Mode
+     */
+    public static SolutionMode parse(String name) {
+        switch (name) {
+            case "all":
+                return all();
+            case "first":
+                return first();
+            case "unique":
+                return unique();
+            case "count":
+                return count();
+            default:
+                return limit(Long.parseLong(name));
+        }
+    }
+
+    /**
+     * Gets maximal number of solutions to search for.
+     *
+     * @return Limit of solutions
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks whether solutions are kept.
+     *
+     * @return False if solutions are only counted
+     */
+    public boolean isKeepSolutions() {
+        return keepSolutions;
+    }
+
+    /**
+     * Checks whether the search may have stopped early.
+     *
+     * @param numberOfSolutions Number of solutions found
+     * @return True if the limit was reached
+     */
+    public boolean isLimitReached(long numberOfSolutions) {
+        return numberOfSolutions >= limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SolutionMode)) {
+            return false;
+        }
+        SolutionMode other = (SolutionMode) o;
+        return limit == other.limit && keepSolutions == other.keepSolutions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(limit) * 31 + (keepSolutions ? 1 : 0);
+    }
+
+    /**
+     * Converts mode to its name.
+     *
+     * @return Name as taken by {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        if (!keepSolutions) {
+            return "count";
+        }
+        if (limit == Long.MAX_VALUE) {
+            return "all";
+        }
+        return limit == 1 ? "first" : limit == 2 ? "unique" : Long.toString(limit);
+    }
+}
@@ -0,0 +1,29 @@
+package nonogram;
+
+import java.io.IOException;
+
+/**
+ * Receives solutions as soon as the solver finds them.
+ */
+@FunctionalInterface
+public interface SolutionSink {
+
+    /**
+     * Takes a found solution.
+     * <p>
+     * The solution is the grid the solver works on, it is only valid during
+     * the call and has to be copied if it is kept.
+     *
+     * @param solution Complete solution
+     */
+    void accept(NonogramSolver.NonogrammSolution solution);
+
+    /**
+     * Stores all solutions taken so far, called before a {@link Checkpoint} is written.
+     * Does nothing by default.
+     *
+     * @throws IOException If solutions can not be stored
+     */
+    default void flush() throws IOException {
+    }
+}
@@ -0,0 +1,178 @@
+package nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes solutions to a file while they are found.
+ * <p>
+ * Solutions are encoded into a large buffer which is written to a file
+ * channel whenever it is full, so memory use does not depend on the number
+ * of solutions. Two formats are supported:
+ * <ul>
+ * <li>{@link Format#TEXT}: one line per solution, as written by
+ * {@link NonogramSolver.NonogrammSolution#toString()}</li>
+ * <li>{@link Format#BINARY}: the bytes {@code NGB1}, the number of columns m
+ * and rows n as big endian ints, then every solution as n * m bits in row
+ * order, black cells set, most significant bit first and padded to full
+ * bytes</li>
+ * </ul>
+ */
+public final class SolutionWriter implements SolutionSink, Closeable {
+    // Default size of write buffer
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Output format.
+     */
+    public enum Format {
+        TEXT, BINARY
+    }
+
+    private final FileChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer;
+    private final byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private long numberOfSolutions;
+
+    /**
+     * Creates a writer, an existing file is overwritten.
+     *
+     * @param path   Output file
+     * @param format Output format
+     * @param n      Number of rows
+     * @param m      Number of columns
+     * @throws IOException If file can not be opened
+     */
+    public SolutionWriter(Path path, Format format, int n, int m) throws IOException {
+        this(path, format, n, m, -1);
+    }
+
+    /**
+     * Creates a writer appending to the first solutions of an existing file,
+     * e.g. to resume from a {@link Checkpoint}. Later solutions are cut off.
+     *
+     * @param path      Output file
+     * @param format    Output format of the file
+     * @param n         Number of rows
+     * @param m         Number of columns
+     * @param solutions Number of solutions to keep, -1 to overwrite the file
+     * @throws IOException If file can not be opened or has less solutions
+     */
+    public SolutionWriter(Path path, Format format, int n, int m, long solutions) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.format = format;
+
+        // At least one solution has to fit
+        int solutionSize = format == Format.TEXT ? n * m + lineSeparator.length : (n * m + 7) / 8;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, solutionSize));
+
+        int headerSize = format == Format.BINARY ? 12 : 0;
+        long size = solutions <= 0 ? 0 : headerSize + solutions * solutionSize;
+        if (channel.size() < size) {
+            channel.close();
+            throw new IOException(path + " has less than " + solutions + " solution(s)");
+        }
+        channel.truncate(size);
+        channel.position(size);
+        this.numberOfSolutions = Math.max(0, solutions);
+
+        if (format == Format.BINARY && size == 0) {
+            buffer.put("NGB1".getBytes(StandardCharsets.US_ASCII));
+            buffer.putInt(m);
+            buffer.putInt(n);
+        }
+    }
+
+    @Override
+    public void accept(NonogramSolver.NonogrammSolution solution) {
+        int n = solution.getN();
+        int m = solution.getM();
+        try {
+            if (format == Format.TEXT) {
+                ensureRemaining(n * m + lineSeparator.length);
+                for (int row = 0; row < n; row++) {
+                    for (int col = 0; col < m; col++) {
+                        buffer.put((byte) solution.get(row, col));
+                    }
+                }
+                buffer.put(lineSeparator);
+            } else {
+                ensureRemaining((n * m + 7) / 8);
+                int bits = 0;
+                int count = 0;
+                for (int row = 0; row < n; row++) {
+                    for (int col = 0; col < m; col++) {
+                        bits = bits << 1 | (solution.get(row, col) == NonogramSolver.FIELD_BLACK ? 1 : 0);
+                        if (++count == 8) {
+                            buffer.put((byte) bits);
+                            bits = 0;
+                            count = 0;
+                        }
+                    }
+                }
+                if (count > 0) {
+                    buffer.put((byte) (bits << (8 - count)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numberOfSolutions++;
+    }
+
+    /**
+     * Gets number of written solutions.
+     *
+     * @return Number of solutions
+     */
+    public long getNumberOfSolutions() {
+        return numberOfSolutions;
+    }
+
+    /**
+     * Writes buffered solutions and closes the file.
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes buffer to file if there is not enough space left.
+     *
+     * @param size Number of bytes needed
+     * @throws IOException If writing fails
+     */
+    private void ensureRemaining(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes buffered solutions to the file.
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package nonogram;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a whole solve.
+ */
+@Name("nonogram.Solve")
+@Label("Nonogram Solve")
+@Category("Nonogram")
+@Description("Search of a nonogram, from start to last solution")
+final class SolveEvent extends Event {
+    @Label("Columns")
+    int m;
+
+    @Label("Rows")
+    int n;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Solutions")
+    long solutions;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Prunes")
+    long prunes;
+
+    @Label("Backtracks")
+    long backtracks;
+}
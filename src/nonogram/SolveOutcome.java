@@ -0,0 +1,73 @@
+package nonogram;
+
+/**
+ * Result of a search which may have been stopped.
+ * <p>
+ * Besides how the search ended it holds what was found until then, so a
+ * caller running into a deadline still learns the solutions found and how
+ * much of the search space was covered.
+ */
+public final class SolveOutcome {
+    /**
+     * How a search ended.
+     */
+    public enum Status {
+        /** At least one solution found, search complete or limit of solutions reached */
+        SOLVED,
+        /** Search complete without solution */
+        UNSAT,
+        /** Deadline passed before the search was complete */
+        TIMED_OUT,
+        /** Cancelled before the search was complete */
+        CANCELLED
+    }
+
+    private final Status status;
+    private final long numberOfSolutions;
+    private final long numberOfNodes;
+    private final double explored;
+    private final long nanos;
+
+    public SolveOutcome(Status status, long numberOfSolutions, long numberOfNodes, double explored, long nanos) {
+        this.status = status;
+        this.numberOfSolutions = numberOfSolutions;
+        this.numberOfNodes = numberOfNodes;
+        this.explored = explored;
+        this.nanos = nanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getNumberOfSolutions() {
+        return numberOfSolutions;
+    }
+
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Gets share of the first row permutations whose subtrees were searched completely.
+     *
+     * @return Value between 0 and 1
+     */
+    public double getExplored() {
+        return explored;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Converts outcome to a report line.
+     *
+     * @return Status, solutions, nodes, explored share and time
+     */
+    public String toString() {
+        return String.format("%s, %d solution(s), %d nodes, %.1f %% of first row explored, %.1f ms",
+                status, numberOfSolutions, numberOfNodes, 100 * explored, nanos / 1e6);
+    }
+}
@@ -0,0 +1,122 @@
+package nonogram;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Sums up statistics of all instrumented solves of the JVM.
+ * <p>
+ * Registered as {@code nonogram:type=SolverMonitor} in the platform MBean
+ * server on first use, so running solvers can be watched with any JMX
+ * client. Only solves with statistics set are recorded.
+ */
+public final class SolverMonitor implements SolverMonitorMXBean {
+    private static final SolverMonitor INSTANCE = new SolverMonitor();
+
+    private boolean registered;
+    private long solves;
+    private long solutions;
+    private long nodes;
+    private long prunes;
+    private long backtracks;
+    private long totalNanos;
+    private long maxNanos;
+    private long[] lastNodesPerDepth = new long[0];
+
+    private SolverMonitor() {
+    }
+
+    /**
+     * Gets the monitor, registering it as MBean if not done yet.
+     *
+     * @return Monitor of the JVM
+     */
+    public static SolverMonitor getInstance() {
+        synchronized (INSTANCE) {
+            if (!INSTANCE.registered) {
+                INSTANCE.registered = true;
+                try {
+                    ManagementFactory.getPlatformMBeanServer()
+                            .registerMBean(INSTANCE, new ObjectName("nonogram:type=SolverMonitor"));
+                } catch (JMException e) {
+                    throw new IllegalStateException("Could not register solver monitor", e);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Records a finished solve.
+     *
+     * @param statistics        Counters of the solve
+     * @param numberOfSolutions Solutions found
+     * @param nanos             Time of the solve
+     */
+    public synchronized void record(SearchStatistics statistics, long numberOfSolutions, long nanos) {
+        solves++;
+        solutions += numberOfSolutions;
+        nodes += statistics.getTotalNodes();
+        prunes += statistics.getTotalPrunes();
+        backtracks += statistics.getTotalBacktracks();
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+
+        lastNodesPerDepth = new long[statistics.getDepths()];
+        for (int depth = 0; depth < lastNodesPerDepth.length; depth++) {
+            lastNodesPerDepth[depth] = statistics.getNodes(depth);
+        }
+    }
+
+    @Override
+    public synchronized long getSolves() {
+        return solves;
+    }
+
+    @Override
+    public synchronized long getSolutions() {
+        return solutions;
+    }
+
+    @Override
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public synchronized long getPrunes() {
+        return prunes;
+    }
+
+    @Override
+    public synchronized long getBacktracks() {
+        return backtracks;
+    }
+
+    @Override
+    public synchronized double getTotalTimeMillis() {
+        return totalNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getMaxTimeMillis() {
+        return maxNanos / 1e6;
+    }
+
+    @Override
+    public synchronized long[] getLastNodesPerDepth() {
+        return lastNodesPerDepth.clone();
+    }
+
+    /**
+     * Converts totals to a report line.
+     *
+     * @return Solves, nodes, prunes, backtracks and times
+     */
+    public synchronized String toString() {
+        return String.format("%d solve(s), %d solution(s), %d nodes, %d prunes, %d backtracks, "
+                        + "%.1f ms total, %.1f ms max",
+                solves, solutions, nodes, prunes, backtracks, totalNanos / 1e6, maxNanos / 1e6);
+    }
+}
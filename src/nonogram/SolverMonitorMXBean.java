@@ -0,0 +1,63 @@
+package nonogram;
+
+/**
+ * Management interface of the {@link SolverMonitor}.
+ */
+public interface SolverMonitorMXBean {
+
+    /**
+     * Gets number of finished solves.
+     *
+     * @return Number of solves
+     */
+    long getSolves();
+
+    /**
+     * Gets solutions found by all solves.
+     *
+     * @return Number of solutions
+     */
+    long getSolutions();
+
+    /**
+     * Gets nodes visited by all solves.
+     *
+     * @return Number of nodes
+     */
+    long getNodes();
+
+    /**
+     * Gets permutations rejected by propagation in all solves.
+     *
+     * @return Number of prunes
+     */
+    long getPrunes();
+
+    /**
+     * Gets permutations without solution in all solves.
+     *
+     * @return Number of backtracks
+     */
+    long getBacktracks();
+
+    /**
+     * Gets time spent in all solves.
+     *
+     * @return Milliseconds
+     */
+    double getTotalTimeMillis();
+
+    /**
+     * Gets time of the slowest solve.
+     *
+     * @return Milliseconds
+     */
+    double getMaxTimeMillis();
+
+    /**
+     * Gets nodes per depth of the last solve.
+     *
+     * @return Number of nodes per row index
+     */
+    long[] getLastNodesPerDepth();
+}
@@ -0,0 +1,170 @@
+package nonogram;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the number of solutions below a row by column block state.
+ * <p>
+ * Once a row is set, the rows below only depend on the block index and
+ * block counter of every column, so different upper rows leading to the
+ * same state have the same subtrees. The table maps row index and column
+ * state to the number of solutions of the subtree, zero marking a dead end.
+ * It has a fixed number of slots, a new entry replaces the entry in its
+ * slot. Entries are immutable, so one table may be shared by several
+ * threads.
+ */
+public final class TranspositionTable {
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    // Statistics
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity has to be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up number of solutions below a row.
+     *
+     * @param rowIndex      Index of the last set row
+     * @param columnIndex   Block index per column after that row
+     * @param columnCounter Block counter per column after that row
+     * @return Number of solutions, or -1 if not cached
+     */
+    public long get(int rowIndex, int[] columnIndex, int[] columnCounter) {
+        lookups.increment();
+        int hash = hash(rowIndex, columnIndex, columnCounter);
+        Entry entry = slots.get(hash & mask);
+        if (entry != null && entry.matches(hash, rowIndex, columnIndex, columnCounter)) {
+            hits.increment();
+            return entry.numberOfSolutions;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores number of solutions below a row.
+     *
+     * @param rowIndex          Index of the last set row
+     * @param columnIndex       Block index per column after that row
+     * @param columnCounter     Block counter per column after that row
+     * @param numberOfSolutions Number of solutions of the whole subtree
+     */
+    public void put(int rowIndex, int[] columnIndex, int[] columnCounter, long numberOfSolutions) {
+        stores.increment();
+        int hash = hash(rowIndex, columnIndex, columnCounter);
+        Entry entry = new Entry(hash, rowIndex, columnIndex.clone(), columnCounter.clone(), numberOfSolutions);
+        if (slots.getAndSet(hash & mask, entry) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Gets number of lookups.
+     *
+     * @return Number of calls of {@link #get(int, int[], int[])}
+     */
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Gets number of successful lookups.
+     *
+     * @return Number of lookups finding an entry
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets number of stored entries.
+     *
+     * @return Number of calls of {@link #put(int, int[], int[], long)}
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Gets number of replaced entries.
+     *
+     * @return Number of stores which replaced another entry
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets share of successful lookups.
+     *
+     * @return Hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long lookups = getLookups();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    /**
+     * Converts statistics to a report line.
+     *
+     * @return Hits, lookups and evictions
+     */
+    public String toString() {
+        return String.format("%d of %d lookups hit (%.1f %%), %d stores, %d evictions",
+                getHits(), getLookups(), 100 * getHitRate(), getStores(), getEvictions());
+    }
+
+    private static int hash(int rowIndex, int[] columnIndex, int[] columnCounter) {
+        int hash = rowIndex;
+        for (int i = 0; i < columnIndex.length; i++) {
+            hash = 31 * (31 * hash + columnIndex[i]) + columnCounter[i];
+        }
+        // Spread bits for the slot mask
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Cached subtree.
+     */
+    private static final class Entry {
+        private final int hash;
+        private final int rowIndex;
+        private final int[] columnIndex;
+        private final int[] columnCounter;
+        private final long numberOfSolutions;
+
+        Entry(int hash, int rowIndex, int[] columnIndex, int[] columnCounter, long numberOfSolutions) {
+            this.hash = hash;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.columnCounter = columnCounter;
+            this.numberOfSolutions = numberOfSolutions;
+        }
+
+        boolean matches(int hash, int rowIndex, int[] columnIndex, int[] columnCounter) {
+            return this.hash == hash && this.rowIndex == rowIndex
+                    && Arrays.equals(this.columnIndex, columnIndex)
+                    && Arrays.equals(this.columnCounter, columnCounter);
+        }
+    }
+}